@@ -0,0 +1,92 @@
+package HexGame;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Общие для всего процесса ресурсы: фон декодируется один раз в фоновом потоке при запуске,
+// а под каждый размер панели хранится уже растянутая совместимая с экраном копия, так что отрисовка фона —
+// одно копирование без масштабирования. Переходы между меню и игрой не читают диск и не декодируют PNG.
+// Масштабированные копии запрашиваются только из потока интерфейса
+public class AssetCache {
+    public static final String BACKGROUND_FILE = "background.png";
+    // Меню и игра обычно одного размера; ещё пара размеров на случай изменения окна
+    private static final int MAX_SCALED = 4;
+
+    private static volatile CompletableFuture<BufferedImage> background;
+    private static final Map<Long, BufferedImage> scaled = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > MAX_SCALED;
+        }
+    };
+
+    private AssetCache() {}
+
+    // Запускает чтение фона; повторные вызовы ничего не делают
+    public static synchronized void preload() {
+        if (background != null) return;
+        CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+        background = future;
+        Thread thread = new Thread(() -> future.complete(decode(BACKGROUND_FILE)), "hexcells-assets");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static BufferedImage decode(String file) {
+        try {
+            return ImageIO.read(new File(file));
+        } catch (IOException e) {
+            System.err.println("Не удалось загрузить фоновое изображение: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Исходный фон или null, если он ещё читается или файла нет
+    public static BufferedImage background() {
+        preload();
+        return background.getNow(null);
+    }
+
+    // Перерисовать компонент, когда фон дочитан; если он уже готов, ничего не нужно
+    public static void repaintWhenLoaded(Component component) {
+        preload();
+        if (background.isDone()) return;
+        background.thenRun(() -> SwingUtilities.invokeLater(component::repaint));
+    }
+
+    // Фон, растянутый под width x height; null, пока фона нет. Новый размер окна даёт новую копию,
+    // копии давно не встречавшихся размеров вытесняются
+    public static BufferedImage scaledBackground(int width, int height, GraphicsConfiguration config) {
+        BufferedImage source = background();
+        if (source == null || width <= 0 || height <= 0) return null;
+        long key = (long) width << 32 | height;
+        BufferedImage image = scaled.get(key);
+        if (image == null) {
+            if (config == null) {
+                config = GraphicsEnvironment.isHeadless() ? null
+                        : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+            }
+            image = config != null
+                    ? config.createCompatibleImage(width, height, Transparency.OPAQUE)
+                    : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, width, height, null);
+            g.dispose();
+            scaled.put(key, image);
+        }
+        return image;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package HexGame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Фоновое автосохранение: снимок плоскостей берётся в потоке интерфейса, запись идёт в отдельном потоке.
+// Частые ходы сливаются — пишется только последний снимок за время задержки
+public class Autosaver {
+    public static final long DEFAULT_DELAY_MILLIS = 1000;
+    private static final long FLUSH_TIMEOUT_SECONDS = 5;
+
+    private final Path path;
+    private final long delayMillis;
+    private final AtomicReference<SaveFile.Snapshot> pending = new AtomicReference<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hexcells-autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public Autosaver(Path path) {
+        this(path, DEFAULT_DELAY_MILLIS);
+    }
+
+    public Autosaver(Path path, long delayMillis) {
+        this.path = path;
+        this.delayMillis = delayMillis;
+    }
+
+    // Вызывается после хода; запись откладывается, пока не наберётся пауза
+    public void requestSave(Game game) {
+        if (pending.getAndSet(SaveFile.snapshot(game)) == null) {
+            executor.schedule(this::writePending, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Законченную партию продолжать нечего: отложенная запись отменяется, файл удаляется
+    public void discard() {
+        pending.set(null);
+        executor.execute(() -> {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                System.err.println("Не удалось удалить автосохранение: " + e.getMessage());
+            }
+        });
+    }
+
+    // Немедленная запись текущего состояния с ожиданием и остановка потока; при закрытии окна или выходе в меню
+    public void close(Game game) {
+        if (game != null && !game.isGameOver()) pending.set(SaveFile.snapshot(game));
+        try {
+            executor.submit(this::writePending).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Автосохранение не завершилось: " + e);
+        }
+        executor.shutdown();
+    }
+
+    private void writePending() {
+        SaveFile.Snapshot snapshot = pending.getAndSet(null);
+        if (snapshot == null) return;
+        try {
+            SaveFile.write(snapshot, path);
+        } catch (IOException e) {
+            System.err.println("Не удалось автосохранить игру: " + e.getMessage());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package HexGame;
+
+// Операции над битовыми плоскостями long[], бит i лежит в слове i >>> 6
+final class Bits {
+    private Bits() {}
+
+    static long[] create(int bits) {
+        return new long[(bits + 63) >>> 6];
+    }
+
+    static boolean get(long[] words, int i) {
+        return (words[i >>> 6] & (1L << i)) != 0;
+    }
+
+    static void set(long[] words, int i) {
+        words[i >>> 6] |= 1L << i;
+    }
+
+    static void clear(long[] words, int i) {
+        words[i >>> 6] &= ~(1L << i);
+    }
+
+    static void flip(long[] words, int i) {
+        words[i >>> 6] ^= 1L << i;
+    }
+
+    static void assign(long[] words, int i, boolean value) {
+        if (value) set(words, i); else clear(words, i);
+    }
+
+    static int count(long[] words) {
+        int count = 0;
+        for (long word : words) count += Long.bitCount(word);
+        return count;
+    }
+}
\ No newline at end of file
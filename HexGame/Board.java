@@ -1,14 +1,26 @@
 package HexGame;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 public class Board {
-    private final Cell[][] cells;
     private final HexGrid grid;
-    private final Random random;
+    private final Level level;
+    private long seed;
     private final double blueProbability;
-    private final boolean[][] isActive;
+    private final boolean isRectangular;
+    private final long[] shapeMask; // Своя форма из BoardSpec; null — прямоугольник или ромб
+    // Битовые плоскости состояния: бит i соответствует клетке r * cols + c
+    private final long[] active;
+    private final long[] blue;
+    private final long[] revealed;
+    private final long[] flagged;
+    private final byte[] clues;
+    private int activeCount;
     private boolean isInitialized;
+    private boolean noGuess;
+    private long noGuessBudgetMillis = NoGuessGenerator.DEFAULT_BUDGET_MILLIS;
+    private BoardPool pool; // Источник готовых расстановок для первого хода; null — генерация на месте
+    private boolean pooledLayout; // Расстановка взята из пула: воспроизводится по зерну без стартовой клетки
 
     public enum Level {
         EASY(5, 5, 0.2, true),
@@ -29,137 +41,281 @@ public class Board {
     }
 
     public Board(Level level) {
-        this.cells = new Cell[level.rows][level.cols];
-        this.grid = new HexGrid(level.rows, level.cols);
-        this.random = new Random();
-        this.blueProbability = level.blueProbability;
-        this.isActive = new boolean[level.rows][level.cols];
+        this(level, new SplittableRandom().nextLong());
+    }
+
+    public Board(Level level, long seed) {
+        this(level, level.rows, level.cols, level.blueProbability, level.isRectangular, seed);
+    }
+
+    // Доска произвольного размера вне предустановленных уровней
+    public Board(int rows, int cols, double blueProbability, boolean isRectangular, long seed) {
+        this(null, rows, cols, blueProbability, isRectangular, seed);
+    }
+
+    public Board(BoardSpec spec, long seed) {
+        this(null, spec.rows, spec.cols, spec.density, spec.shape == BoardSpec.Shape.RECTANGLE, spec.mask, seed);
+    }
+
+    private Board(Level level, int rows, int cols, double blueProbability, boolean isRectangular, long seed) {
+        this(level, rows, cols, blueProbability, isRectangular, null, seed);
+    }
+
+    private Board(Level level, int rows, int cols, double blueProbability, boolean isRectangular, long[] shapeMask,
+                  long seed) {
+        this.grid = new HexGrid(rows, cols);
+        this.level = level;
+        this.seed = seed;
+        this.blueProbability = blueProbability;
+        this.isRectangular = isRectangular;
+        this.shapeMask = shapeMask;
+        int size = grid.size();
+        this.active = Bits.create(size);
+        this.blue = Bits.create(size);
+        this.revealed = Bits.create(size);
+        this.flagged = Bits.create(size);
+        this.clues = new byte[size];
         this.isInitialized = false;
-        initialize(level);
+        initialize();
+    }
+
+    // Копия текущего состояния для вычислений в другом потоке; сетка и маска активных клеток не меняются
+    // после создания доски, поэтому общие, и таблица смежности строится один раз на обе
+    public Board copy() {
+        return new Board(this);
+    }
+
+    private Board(Board other) {
+        this.grid = other.grid;
+        this.level = other.level;
+        this.seed = other.seed;
+        this.blueProbability = other.blueProbability;
+        this.isRectangular = other.isRectangular;
+        this.shapeMask = other.shapeMask;
+        this.active = other.active;
+        this.blue = other.blue.clone();
+        this.revealed = other.revealed.clone();
+        this.flagged = other.flagged.clone();
+        this.clues = other.clues.clone();
+        this.activeCount = other.activeCount;
+        this.isInitialized = other.isInitialized;
+        this.noGuess = other.noGuess;
+        this.noGuessBudgetMillis = other.noGuessBudgetMillis;
+        this.pooledLayout = other.pooledLayout;
+    }
+
+    // Пустая доска с теми же параметрами и другим зерном
+    Board withSeed(long seed) {
+        return new Board(level, grid.getRows(), grid.getCols(), blueProbability, isRectangular, shapeMask, seed);
     }
 
-    private void initialize(Level level) {
+    private void initialize() {
+        if (shapeMask != null) {
+            System.arraycopy(shapeMask, 0, active, 0, active.length);
+            activeCount = Bits.count(active);
+            grid.setActiveMask(active);
+            return;
+        }
+        // Большие доски строят маску параллельно по полосам слов
+        if (grid.size() >= Stripes.PARALLEL_THRESHOLD) {
+            activeCount = StripedGenerator.fillShape(grid, isRectangular, active);
+            grid.setActiveMask(active);
+            return;
+        }
+        int midRow = (grid.getRows() - 1) / 2;
+        int midCol = (grid.getCols() - 1) / 2;
         for (int r = 0; r < grid.getRows(); r++) {
             for (int c = 0; c < grid.getCols(); c++) {
-                if (level.isRectangular) {
-                    isActive[r][c] = true;
-                } else {
-                    int midRow = (level.rows - 1) / 2;
-                    int midCol = (level.cols - 1) / 2;
-                    isActive[r][c] = Math.abs(r - midRow) + Math.abs(c - midCol) <= midRow;
+                boolean isActive = isRectangular
+                        || Math.abs(r - midRow) + Math.abs(c - midCol) <= midRow;
+                if (isActive) {
+                    Bits.set(active, grid.index(r, c));
+                    activeCount++;
                 }
-                cells[r][c] = isActive[r][c] ? new Cell() : null;
             }
         }
+        grid.setActiveMask(active);
     }
 
+    // Доска однозначно определяется уровнем, зерном и первой открытой клеткой
     public void generateBoardForFirstClick(int startRow, int startCol) {
         if (isInitialized) return;
         isInitialized = true;
 
-        // Делаем стартовую ячейку и её соседей безопасными
-        if (isActive[startRow][startCol] && cells[startRow][startCol] != null) {
-            cells[startRow][startCol].setBlue(false);
-            System.out.println("Стартовая ячейка [" + startRow + "," + startCol + "] безопасная");
-        }
-        for (int neighbor : grid.getNeighbors(startRow, startCol)) {
-            if (neighbor != -1) {
-                int nr = neighbor / grid.getCols();
-                int nc = neighbor % grid.getCols();
-                if (isActive[nr][nc] && cells[nr][nc] != null) {
-                    cells[nr][nc].setBlue(false);
-                    System.out.println("Сосед [" + nr + "," + nc + "] безопасный");
-                }
-            }
+        // Готовая расстановка из пула: подходящая к стартовой клетке или с перенесёнными из её окрестности синими
+        int start = grid.index(startRow, startCol);
+        BoardPool.Layout layout = pool != null ? pool.claim(level, noGuess, start) : null;
+        if (layout != null) {
+            System.arraycopy(layout.blue, 0, blue, 0, blue.length);
+            seed = layout.seed;
+            finishPooledLayout(start);
+            return;
         }
 
-        // Подсчитываем активные клетки
-        int activeCells = 0;
-        for (int r = 0; r < grid.getRows(); r++) {
-            for (int c = 0; c < grid.getCols(); c++) {
-                if (isActive[r][c] && cells[r][c] != null) activeCells++;
+        if (noGuess) {
+            Board solvable = NoGuessGenerator.find(this, startRow, startCol, noGuessBudgetMillis);
+            if (solvable != null) {
+                copyLayout(solvable);
+                return;
             }
+            // Бюджет исчерпан: обычная доска из исходного зерна
         }
 
-        // Вычисляем количество синих клеток
-        int blueCount = (int) (blueProbability * activeCells);
-        int safeCells = 1; // Стартовая ячейка
-        for (int neighbor : grid.getNeighbors(startRow, startCol)) {
-            if (neighbor != -1) {
-                int nr = neighbor / grid.getCols();
-                int nc = neighbor % grid.getCols();
-                if (isActive[nr][nc] && cells[nr][nc] != null) safeCells++;
-            }
+        // Большие доски: параллельная генерация по полосам, детерминированная при любом числе потоков
+        if (grid.size() >= Stripes.PARALLEL_THRESHOLD) {
+            StripedGenerator.placeBlues(this, start);
+            updateClues();
+            return;
         }
-        blueCount = Math.min(blueCount, activeCells - safeCells);
-        int placed = 0;
-
-        // Расставляем синие клетки
-        while (placed < blueCount) {
-            int r = random.nextInt(grid.getRows());
-            int c = random.nextInt(grid.getCols());
-            if (isActive[r][c] && cells[r][c] != null && !cells[r][c].isBlue() &&
-                    !(r == startRow && c == startCol) && !isNeighbor(r, c, startRow, startCol)) {
-                cells[r][c].setBlue(true);
-                placed++;
-                System.out.println("Синяя клетка размещена в [" + r + "," + c + "]");
+
+        // Стартовая ячейка и её соседи не попадают в список кандидатов
+        int[] eligible = new int[activeCount];
+        int eligibleCount = 0;
+        for (int i = 0; i < clues.length; i++) {
+            if (isActive(i) && i != start && !grid.areNeighbors(start, i)) {
+                eligible[eligibleCount++] = i;
             }
         }
 
-        // Проверяем стартовую ячейку и соседей
-        if (isActive[startRow][startCol] && cells[startRow][startCol].isBlue()) {
-            System.err.println("Ошибка: стартовая ячейка [" + startRow + "," + startCol + "] стала синей!");
+        // Вычисляем количество синих клеток
+        int blueCount = Math.min((int) (blueProbability * activeCount), eligibleCount);
+        placeBlues(eligible, eligibleCount, blueCount, new SplittableRandom(seed));
+        updateClues();
+    }
+
+    // Частичное перемешивание Фишера-Йетса: первые blueCount кандидатов становятся синими
+    private void placeBlues(int[] eligible, int eligibleCount, int blueCount, SplittableRandom random) {
+        for (int k = 0; k < blueCount; k++) {
+            int j = k + random.nextInt(eligibleCount - k);
+            int cell = eligible[j];
+            eligible[j] = eligible[k];
+            eligible[k] = cell;
+            Bits.set(blue, cell);
         }
-        for (int neighbor : grid.getNeighbors(startRow, startCol)) {
-            if (neighbor != -1) {
-                int nr = neighbor / grid.getCols();
-                int nc = neighbor % grid.getCols();
-                if (isActive[nr][nc] && cells[nr][nc] != null && cells[nr][nc].isBlue()) {
-                    System.err.println("Ошибка: сосед [" + nr + "," + nc + "] стал синим!");
-                }
-            }
+    }
+
+    // Расстановка для пула, пока стартовая клетка неизвестна: столько же синих, сколько дала бы обычная генерация
+    void generateLayout() {
+        int[] eligible = new int[activeCount];
+        int eligibleCount = 0;
+        for (int i = 0; i < clues.length; i++) {
+            if (isActive(i)) eligible[eligibleCount++] = i;
         }
+        int blueCount = Math.min((int) (blueProbability * activeCount), Math.max(activeCount - 7, 0));
+        placeBlues(eligible, eligibleCount, blueCount, new SplittableRandom(seed));
+    }
+
+    // Повтор генерации из пула для записи партии: расстановка пула — функция уровня и зерна
+    void generatePooledLayout(int startRow, int startCol) {
+        if (isInitialized) return;
+        isInitialized = true;
+        generateLayout();
+        finishPooledLayout(grid.index(startRow, startCol));
+    }
 
+    private void finishPooledLayout(int start) {
+        pooledLayout = true;
+        if (!isStartSafe(start)) relocateFromStart(start, new SplittableRandom(seed));
         updateClues();
     }
 
-    private void updateClues() {
-        for (int r = 0; r < grid.getRows(); r++) {
-            for (int c = 0; c < grid.getCols(); c++) {
-                if (isActive[r][c] && cells[r][c] != null && !cells[r][c].isBlue()) {
-                    int clue = countBlueNeighbors(r, c);
-                    cells[r][c].setClue(clue);
-                }
-            }
+    boolean isPooledLayout() { return pooledLayout; }
+
+    // Стартовая клетка и её соседи не синие
+    boolean isStartSafe(int start) {
+        if (isBlue(start)) return false;
+        for (int s = grid.neighborStart(start), e = grid.neighborEnd(start); s < e; s++) {
+            if (isBlue(grid.neighborAt(s))) return false;
         }
+        return true;
     }
 
-    private int countBlueNeighbors(int r, int c) {
-        int count = 0;
-        for (int neighbor : grid.getNeighbors(r, c)) {
-            if (neighbor != -1) {
-                int nr = neighbor / grid.getCols();
-                int nc = neighbor % grid.getCols();
-                if (isActive[nr][nc] && cells[nr][nc] != null && cells[nr][nc].isBlue()) {
-                    count++;
-                }
+    // Синие клетки из окрестности старта переезжают на случайные свободные клетки вне её; число синих сохраняется
+    private void relocateFromStart(int start, SplittableRandom random) {
+        int moved = isBlue(start) ? 1 : 0;
+        Bits.clear(blue, start);
+        for (int s = grid.neighborStart(start), e = grid.neighborEnd(start); s < e; s++) {
+            int neighbor = grid.neighborAt(s);
+            if (isBlue(neighbor)) {
+                Bits.clear(blue, neighbor);
+                moved++;
             }
         }
-        return count;
+        int[] free = new int[activeCount];
+        int freeCount = 0;
+        for (int i = 0; i < clues.length; i++) {
+            if (isActive(i) && !isBlue(i) && i != start && !grid.areNeighbors(start, i)) free[freeCount++] = i;
+        }
+        placeBlues(free, freeCount, Math.min(moved, freeCount), random);
     }
 
-    private boolean isNeighbor(int r, int c, int startRow, int startCol) {
-        for (int neighbor : grid.getNeighbors(startRow, startCol)) {
-            if (neighbor != -1) {
-                int nr = neighbor / grid.getCols();
-                int nc = neighbor % grid.getCols();
-                if (r == nr && c == nc) return true;
-            }
+    void setPool(BoardPool pool) { this.pool = pool; }
+
+    // Переносит расстановку синих клеток и подсказки; зерно тоже переносится, чтобы доску можно было воспроизвести
+    private void copyLayout(Board other) {
+        System.arraycopy(other.blue, 0, blue, 0, blue.length);
+        System.arraycopy(other.clues, 0, clues, 0, clues.length);
+        seed = other.seed;
+    }
+
+    // Побитовый подсчёт по плоскостям, без обхода соседей по клеткам; большие доски — параллельно по полосам строк
+    void updateClues() {
+        ClueCounter.compute(grid, active, blue, clues);
+    }
+
+    // Состояние клетки по индексу r * cols + c
+    public boolean isActive(int index) { return Bits.get(active, index); }
+    public boolean isBlue(int index) { return Bits.get(blue, index); }
+    public boolean isRevealed(int index) { return Bits.get(revealed, index); }
+    public boolean isFlagged(int index) { return Bits.get(flagged, index); }
+    public int getClue(int index) { return clues[index]; }
+
+    public void setBlue(int index, boolean isBlue) { Bits.assign(blue, index, isBlue); }
+    public void reveal(int index) { Bits.set(revealed, index); }
+    public void conceal(int index) { Bits.clear(revealed, index); }
+    public void toggleFlag(int index) { Bits.flip(flagged, index); }
+    public void setClue(int index, int clue) { clues[index] = (byte) clue; }
+
+    public Level getLevel() { return level; }
+    public long getSeed() { return seed; }
+    public double getBlueProbability() { return blueProbability; }
+    public boolean isRectangular() { return isRectangular; }
+    public boolean hasCustomShape() { return shapeMask != null; }
+    public int getActiveCount() { return activeCount; }
+    public int getBlueCount() { return Bits.count(blue); }
+
+    // Плоскости для пословных обходов внутри пакета; только чтение
+    long[] activePlane() { return active; }
+    long[] revealedPlane() { return revealed; }
+    long[] flaggedPlane() { return flagged; }
+    long[] bluePlane() { return blue; }
+
+    // После загрузки плоскостей из сохранения: подсказки пересчитываются по синим клеткам
+    void restore(boolean initialized) {
+        this.isInitialized = initialized;
+        if (initialized) updateClues();
+    }
+
+    // Открыта ли синяя клетка, то есть проиграна ли партия
+    boolean isBlueRevealed() {
+        for (int w = 0; w < blue.length; w++) {
+            if ((blue[w] & revealed[w]) != 0) return true;
         }
         return false;
     }
 
-    public Cell getCell(int r, int c) { return cells[r][c]; }
+    // Режим без угадывания: доска должна решаться логикой Solver от первой клетки
+    public void setNoGuess(boolean noGuess) { this.noGuess = noGuess; }
+    public boolean isNoGuess() { return noGuess; }
+    public void setNoGuessBudgetMillis(long budgetMillis) { this.noGuessBudgetMillis = budgetMillis; }
+    public boolean isInitialized() { return isInitialized; }
+
+    // Представление клетки для совместимости со старым API
+    public Cell getCell(int r, int c) {
+        int index = grid.index(r, c);
+        return isActive(index) ? new Cell(this, index) : null;
+    }
+
     public HexGrid getGrid() { return grid; }
-    public boolean isActive(int r, int c) { return isActive[r][c]; }
+    public boolean isActive(int r, int c) { return isActive(grid.index(r, c)); }
 }
\ No newline at end of file
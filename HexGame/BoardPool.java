@@ -0,0 +1,169 @@
+package HexGame;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Пул заранее сгенерированных расстановок для каждого уровня, чтобы первый ход новой партии не ждал генерации.
+// Пул пополняет один фоновый поток с низким приоритетом; размер очереди на уровень и режим ограничен.
+// У расстановки заранее посчитаны стартовые клетки, с которых она подходит: окрестность без синих,
+// а в режиме без угадывания ещё и решаемость логикой. Очереди без угадывания дороги (проверка решаемости с каждой
+// стартовой клетки), поэтому пополняются только после первого запроса этого режима
+public class BoardPool {
+    public static final int CAPACITY = 4;
+    // Расстановка без угадывания подходит лишь к части стартовых клеток, поэтому их держим больше
+    public static final int NO_GUESS_CAPACITY = 16;
+    private static final BoardPool SHARED = new BoardPool(CAPACITY, NO_GUESS_CAPACITY);
+
+    static final class Layout {
+        final long seed;
+        final long[] blue;
+        final long[] startable; // Клетки, с которых расстановку можно начать без переноса синих
+
+        Layout(long seed, long[] blue, long[] startable) {
+            this.seed = seed;
+            this.blue = blue;
+            this.startable = startable;
+        }
+    }
+
+    private final int capacity;
+    private final int noGuessCapacity;
+    private final Board.Level[] levels = Board.Level.values();
+    // Очередь на пару (уровень, режим без угадывания): индекс level.ordinal() * 2 + (noGuess ? 1 : 0)
+    private final List<ArrayDeque<Layout>> queues = new ArrayList<>();
+    private final boolean[] requested; // Очереди, которые пополняет фоновый поток
+    private final SplittableRandom random = new SplittableRandom();
+    private Thread worker;
+
+    public BoardPool(int capacity, int noGuessCapacity) {
+        this.capacity = capacity;
+        this.noGuessCapacity = noGuessCapacity;
+        this.requested = new boolean[levels.length * 2];
+        for (int i = 0; i < levels.length * 2; i++) {
+            queues.add(new ArrayDeque<>(capacity(i)));
+            requested[i] = i % 2 == 0;
+        }
+    }
+
+    private int capacity(int slot) {
+        return slot % 2 == 1 ? noGuessCapacity : capacity;
+    }
+
+    // Общий пул игры; первый вызов запускает пополнение
+    public static BoardPool shared() {
+        SHARED.start();
+        return SHARED;
+    }
+
+    public synchronized void start() {
+        if (worker != null) return;
+        worker = new Thread(this::fill, "hexcells-board-pool");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    // Новая доска уровня; расстановка берётся из пула при первом ходе
+    public Board newBoard(Board.Level level, boolean noGuess) {
+        request(slot(level, noGuess));
+        Board board = new Board(level);
+        board.setNoGuess(noGuess);
+        board.setPool(this);
+        return board;
+    }
+
+    // Начать готовить расстановки режима для всех уровней, например когда игрок включил его в меню
+    public void warmUp(boolean noGuess) {
+        for (Board.Level level : levels) request(slot(level, noGuess));
+    }
+
+    private synchronized void request(int slot) {
+        if (requested[slot]) return;
+        requested[slot] = true;
+        notifyAll();
+    }
+
+    public synchronized int size(Board.Level level, boolean noGuess) {
+        return queues.get(slot(level, noGuess)).size();
+    }
+
+    // Расстановка, подходящая к стартовой клетке; иначе в обычном режиме — любая, синие из окрестности старта переносятся.
+    // В режиме без угадывания перенос нарушил бы решаемость, поэтому без подходящей расстановки возвращается null
+    synchronized Layout claim(Board.Level level, boolean noGuess, int start) {
+        if (level == null) return null;
+        ArrayDeque<Layout> queue = queues.get(slot(level, noGuess));
+        Layout found = null;
+        for (Layout layout : queue) {
+            if (Bits.get(layout.startable, start)) {
+                found = layout;
+                break;
+            }
+        }
+        if (found == null && !noGuess) found = queue.peekFirst();
+        if (found != null) {
+            queue.remove(found);
+            notifyAll();
+        }
+        return found;
+    }
+
+    private static int slot(Board.Level level, boolean noGuess) {
+        return level.ordinal() * 2 + (noGuess ? 1 : 0);
+    }
+
+    private void fill() {
+        while (true) {
+            int slot;
+            long seed;
+            synchronized (this) {
+                while ((slot = emptiestSlot()) < 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                seed = random.nextLong();
+            }
+            Layout layout = generate(levels[slot / 2], slot % 2 == 1, seed);
+            if (layout == null) continue;
+            synchronized (this) {
+                if (queues.get(slot).size() < capacity(slot)) queues.get(slot).addLast(layout);
+            }
+        }
+    }
+
+    // Наименее заполненная из неполных запрошенных очередей или -1, если все полны
+    private int emptiestSlot() {
+        int best = -1;
+        double bestFill = 1;
+        for (int i = 0; i < queues.size(); i++) {
+            if (!requested[i]) continue;
+            double fill = queues.get(i).size() / (double) capacity(i);
+            if (fill < bestFill) {
+                best = i;
+                bestFill = fill;
+            }
+        }
+        return best;
+    }
+
+    // null, если расстановку не с чего начать
+    static Layout generate(Board.Level level, boolean noGuess, long seed) {
+        Board board = new Board(level, seed);
+        board.generateLayout();
+        board.restore(true);
+        HexGrid grid = board.getGrid();
+        long[] startable = Bits.create(grid.size());
+        boolean any = false;
+        for (int i = 0; i < grid.size(); i++) {
+            if (!board.isActive(i) || !board.isStartSafe(i)) continue;
+            if (noGuess && !NoGuessGenerator.isSolvable(board.copy(), grid.rowOf(i), grid.colOf(i))) continue;
+            Bits.set(startable, i);
+            any = true;
+        }
+        return any ? new Layout(seed, board.bluePlane().clone(), startable) : null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package HexGame;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+
+// Отрисовка клеток доски в любой Graphics2D: в HexPanel или во внеэкранный BufferedImage
+public class BoardRenderer {
+    private static final Color HOVER_COLOR = new Color(165, 165, 165);
+    private static final double TILE_MAX_SIZE = 4; // Мельче шестиугольник неотличим от прямоугольника
+
+    private final Game game;
+    private final HexGrid grid;
+    private final HexLayout layout;
+
+    public BoardRenderer(Game game, HexLayout layout) {
+        this.game = game;
+        this.grid = game.getBoard().getGrid();
+        this.layout = layout;
+    }
+
+    // Рисуем только клетки, попадающие в область перерисовки; диапазон берётся из геометрии камеры,
+    // поэтому время кадра зависит от окна, а не от размера доски
+    public void paintCells(Graphics2D g2d, Rectangle clip, int[] hint, int[] hover) {
+        int firstRow = Math.max(layout.firstRow(clip.getMinY()), 0);
+        int lastRow = Math.min(layout.lastRow(clip.getMaxY()), grid.getRows() - 1);
+        int firstCol = Math.max(layout.firstCol(clip.getMinX()), 0);
+        int lastCol = Math.min(layout.lastCol(clip.getMaxX()), grid.getCols() - 1);
+        if (!layout.isDetailed()) {
+            paintCoarse(g2d, firstRow, lastRow, firstCol, lastCol, hint);
+            return;
+        }
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstCol; c <= lastCol; c++) {
+                if (game.getBoard().isActive(r, c)) {
+                    drawHex(g2d, r, c, hint, hover);
+                }
+            }
+        }
+    }
+
+    // Дальний масштаб: только заливка без сглаживания, контура и подсказок; совсем мелкие клетки — прямоугольниками
+    private void paintCoarse(Graphics2D g2d, int firstRow, int lastRow, int firstCol, int lastCol, int[] hint) {
+        Object antialiasing = g2d.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        AffineTransform transform = g2d.getTransform();
+        Shape hex = layout.getOutline();
+        double size = layout.getHexSize();
+        boolean tiles = size < TILE_MAX_SIZE;
+        int tileWidth = (int) Math.ceil(size * 1.5) + 1;
+        int tileHeight = (int) Math.ceil(size * Math.sqrt(3)) + 1;
+        Board board = game.getBoard();
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstCol; c <= lastCol; c++) {
+                int index = grid.index(r, c);
+                if (!board.isActive(index)) continue;
+                if (hint != null && hint[0] == r && hint[1] == c) {
+                    g2d.setColor(hintColor(hint));
+                } else if (board.isFlagged(index)) {
+                    g2d.setColor(Color.RED);
+                } else if (board.isRevealed(index)) {
+                    g2d.setColor(board.isBlue(index) ? Color.BLUE : Color.LIGHT_GRAY);
+                } else {
+                    g2d.setColor(Color.GRAY);
+                }
+                if (tiles) {
+                    g2d.fillRect((int) (layout.centerX(c) - size * 0.75), (int) (layout.centerY(r, c) - size * 0.87),
+                            tileWidth, tileHeight);
+                } else {
+                    g2d.translate(layout.centerX(c), layout.centerY(r, c));
+                    g2d.fill(hex);
+                    g2d.setTransform(transform);
+                }
+            }
+        }
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+    }
+
+    private static Color hintColor(int[] hint) {
+        return hint[2] == Solver.OPEN ? Color.GREEN : hint[2] == Solver.FLAG ? Color.ORANGE : Color.YELLOW;
+    }
+
+    private void drawHex(Graphics2D g2d, int r, int c, int[] hint, int[] hover) {
+        double x = layout.centerX(c);
+        double y = layout.centerY(r, c);
+        Shape hex = layout.getOutline();
+        AffineTransform transform = g2d.getTransform();
+        g2d.translate(x, y);
+
+        Board board = game.getBoard();
+        int index = grid.index(r, c);
+        if (hint != null && hint[0] == r && hint[1] == c) {
+            g2d.setColor(hintColor(hint));
+            g2d.fill(hex);
+        } else if (board.isFlagged(index)) {
+            g2d.setColor(Color.RED);
+            g2d.fill(hex);
+        } else if (board.isRevealed(index)) {
+            g2d.setColor(board.isBlue(index) ? Color.BLUE : Color.LIGHT_GRAY);
+            g2d.fill(hex);
+            if (!board.isBlue(index)) {
+                g2d.setColor(Color.BLACK);
+                g2d.drawString(String.valueOf(board.getClue(index)), -5f, 5f);
+            }
+        } else {
+            boolean hovered = hover != null && hover[0] == r && hover[1] == c;
+            g2d.setColor(hovered ? HOVER_COLOR : Color.GRAY);
+            g2d.fill(hex);
+        }
+        g2d.setColor(Color.BLACK);
+        g2d.draw(hex);
+        g2d.setTransform(transform);
+    }
+
+    // Активная клетка {строка, столбец} под точкой экрана или null
+    public int[] hexAt(int px, int py) {
+        int[] coords = layout.hexAt(px, py);
+        if (!grid.isValid(coords[0], coords[1]) || !game.getBoard().isActive(coords[0], coords[1])) return null;
+        return coords;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package HexGame;
+
+// Параметры доски произвольного размера: строки, столбцы, доля синих клеток и форма —
+// прямоугольник, ромб или своя маска активных клеток (бит r * cols + c)
+public final class BoardSpec {
+    public enum Shape { RECTANGLE, DIAMOND, MASK }
+
+    final int rows;
+    final int cols;
+    final double density;
+    final Shape shape;
+    final long[] mask; // Только для Shape.MASK
+
+    public BoardSpec(int rows, int cols, double density, Shape shape) {
+        this(rows, cols, density, shape, null);
+        if (shape == Shape.MASK) throw new IllegalArgumentException("Для своей формы нужна маска");
+    }
+
+    public BoardSpec(int rows, int cols, double density, long[] mask) {
+        this(rows, cols, density, Shape.MASK, mask.clone());
+        if (mask.length != Bits.create(rows * cols).length) {
+            throw new IllegalArgumentException("Маска на " + mask.length + " слов не подходит к доске " + rows + "x" + cols);
+        }
+        // Биты за последней клеткой обнуляются, иначе они попали бы в число активных клеток
+        int tail = rows * cols & 63;
+        if (tail != 0) this.mask[this.mask.length - 1] &= (1L << tail) - 1;
+    }
+
+    private BoardSpec(int rows, int cols, double density, Shape shape, long[] mask) {
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Неверный размер доски " + rows + "x" + cols);
+        }
+        if (!(density >= 0 && density <= 1)) throw new IllegalArgumentException("Доля синих вне [0, 1]: " + density);
+        this.rows = rows;
+        this.cols = cols;
+        this.density = density;
+        this.shape = shape;
+        this.mask = mask;
+    }
+
+    public static BoardSpec of(Board.Level level) {
+        return new BoardSpec(level.rows, level.cols, level.blueProbability,
+                level.isRectangular ? Shape.RECTANGLE : Shape.DIAMOND);
+    }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public double getDensity() { return density; }
+    public Shape getShape() { return shape; }
+    public long[] getMask() { return mask == null ? null : mask.clone(); }
+}
\ No newline at end of file
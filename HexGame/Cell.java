@@ -1,24 +1,22 @@
 package HexGame;
 
+// Лёгкое представление клетки поверх битовых плоскостей Board
 public class Cell {
-    private boolean isBlue;
-    private boolean isRevealed;
-    private boolean isFlagged;
-    private int clue;
+    private final Board board;
+    private final int index;
 
-    public Cell() {
-        this.isBlue = false;
-        this.isRevealed = false;
-        this.isFlagged = false;
-        this.clue = 0;
+    Cell(Board board, int index) {
+        this.board = board;
+        this.index = index;
     }
 
-    public boolean isBlue() { return isBlue; }
-    public void setBlue(boolean blue) { isBlue = blue; }
-    public boolean isRevealed() { return isRevealed; }
-    public void reveal() { isRevealed = true; }
-    public boolean isFlagged() { return isFlagged; }
-    public void toggleFlag() { isFlagged = !isFlagged; }
-    public int getClue() { return clue; }
-    public void setClue(int clue) { this.clue = clue; }
+    public int getIndex() { return index; }
+    public boolean isBlue() { return board.isBlue(index); }
+    public void setBlue(boolean blue) { board.setBlue(index, blue); }
+    public boolean isRevealed() { return board.isRevealed(index); }
+    public void reveal() { board.reveal(index); }
+    public boolean isFlagged() { return board.isFlagged(index); }
+    public void toggleFlag() { board.toggleFlag(index); }
+    public int getClue() { return board.getClue(index); }
+    public void setClue(int clue) { board.setClue(index, clue); }
 }
\ No newline at end of file
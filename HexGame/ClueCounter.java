@@ -0,0 +1,110 @@
+package HexGame;
+
+import java.util.Arrays;
+
+// Подсказки всей доски по битовым плоскостям, по 64 клетки за операцию. Строки плоскостей не выровнены по словам,
+// поэтому строки r-1, r, r+1 копируются в выровненные буферы; шесть масок соседей получаются сдвигами этих строк,
+// а число синих соседей складывается побитовыми сумматорами в три битовых слоя.
+// Большие доски делятся на полосы строк, которые считаются параллельно
+final class ClueCounter {
+    // Слово строки начинается со столбца 64 * w, то есть с чётного
+    private static final long EVEN_COLUMNS = 0x5555555555555555L;
+    private static final long ODD_COLUMNS = ~EVEN_COLUMNS;
+    private static final int STRIPE_CELLS = 1 << 16;
+
+    private ClueCounter() {}
+
+    // Подсказки записываются только в безопасные активные клетки, как и раньше
+    static void compute(HexGrid grid, long[] active, long[] blue, byte[] clues) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        if ((long) rows * cols < Stripes.PARALLEL_THRESHOLD) {
+            computeRows(grid, active, blue, clues, 0, rows);
+            return;
+        }
+        int stripeRows = Math.max(1, STRIPE_CELLS / cols);
+        Stripes.forEach((rows + stripeRows - 1) / stripeRows, s -> {
+            int from = s * stripeRows;
+            computeRows(grid, active, blue, clues, from, Math.min(rows, from + stripeRows));
+        });
+    }
+
+    // Полоса строк [fromRow, toRow); читает синие клетки и соседних строк, пишет только свои
+    static void computeRows(HexGrid grid, long[] active, long[] blue, byte[] clues, int fromRow, int toRow) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        int words = (cols + 63) >>> 6;
+        long[] above = new long[words];
+        long[] current = new long[words];
+        long[] below = new long[words];
+        long[] activeRow = new long[words];
+        loadRow(blue, fromRow - 1, rows, cols, above);
+        loadRow(blue, fromRow, rows, cols, current);
+        for (int r = fromRow; r < toRow; r++) {
+            loadRow(blue, r + 1, rows, cols, below);
+            loadRow(active, r, rows, cols, activeRow);
+            for (int w = 0; w < words; w++) {
+                long safe = activeRow[w] & ~current[w];
+                if (safe == 0) continue;
+                // Соседи (r-1, c) и (r+1, c) в том же столбце, (r, c-1) и (r, c+1) в своей строке;
+                // диагональные — из строки выше у чётных столбцов и из строки ниже у нечётных
+                long north = above[w];
+                long south = below[w];
+                long west = shiftFromLeft(current, w);
+                long east = shiftFromRight(current, w);
+                long diagonalWest = shiftFromLeft(above, w) & EVEN_COLUMNS | shiftFromLeft(below, w) & ODD_COLUMNS;
+                long diagonalEast = shiftFromRight(above, w) & EVEN_COLUMNS | shiftFromRight(below, w) & ODD_COLUMNS;
+
+                // Два полных сумматора по трём маскам, затем сложение их сумм и переносов: 0..6 в трёх слоях
+                long sum1 = north ^ south ^ west;
+                long carry1 = north & south | west & (north ^ south);
+                long sum2 = east ^ diagonalWest ^ diagonalEast;
+                long carry2 = east & diagonalWest | diagonalEast & (east ^ diagonalWest);
+                long bit0 = sum1 ^ sum2;
+                long carry3 = sum1 & sum2;
+                long bit1 = carry1 ^ carry2 ^ carry3;
+                long bit2 = carry1 & carry2 | carry3 & (carry1 ^ carry2);
+
+                int base = r * cols + (w << 6);
+                for (long m = safe; m != 0; m &= m - 1) {
+                    int j = Long.numberOfTrailingZeros(m);
+                    clues[base + j] = (byte) ((int) (bit0 >>> j) & 1 | ((int) (bit1 >>> j) & 1) << 1
+                            | ((int) (bit2 >>> j) & 1) << 2);
+                }
+            }
+            long[] reused = above;
+            above = current;
+            current = below;
+            below = reused;
+        }
+    }
+
+    // Бит j слова — клетка столбца 64 * w + j - 1 (сосед слева)
+    private static long shiftFromLeft(long[] row, int w) {
+        return row[w] << 1 | (w > 0 ? row[w - 1] >>> 63 : 0);
+    }
+
+    // Бит j слова — клетка столбца 64 * w + j + 1 (сосед справа); хвост последнего слова обнулён
+    private static long shiftFromRight(long[] row, int w) {
+        return row[w] >>> 1 | (w + 1 < row.length ? row[w + 1] << 63 : 0);
+    }
+
+    // Строка row плоскости, выровненная по словам; вне доски — нули
+    private static void loadRow(long[] plane, int row, int rows, int cols, long[] out) {
+        if (row < 0 || row >= rows) {
+            Arrays.fill(out, 0);
+            return;
+        }
+        long start = (long) row * cols;
+        for (int w = 0; w < out.length; w++) {
+            long bit = start + ((long) w << 6);
+            int index = (int) (bit >>> 6);
+            int offset = (int) bit & 63;
+            long value = plane[index] >>> offset;
+            if (offset != 0 && index + 1 < plane.length) value |= plane[index + 1] << (64 - offset);
+            out[w] = value;
+        }
+        int tail = cols & 63;
+        if (tail != 0) out[out.length - 1] &= (1L << tail) - 1;
+    }
+}
\ No newline at end of file
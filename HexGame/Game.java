@@ -1,157 +1,409 @@
 package HexGame;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
 
 public class Game {
+    private static final int[] NO_CELLS = new int[0];
+    private static final BooleanSupplier NOT_CANCELLED = () -> false;
+    private static final GameListener[] NO_LISTENERS = new GameListener[0];
+    // Действие подсказки, когда безопасного вывода нет: клетка с наименьшим риском
+    public static final int GUESS = 2;
+
     private final Board board;
     private boolean gameOver;
     private boolean won;
     private int[] hint;
+    private double hintRisk; // Вероятность, что клетка подсказки синяя
+    private ProbabilitySolver probabilitySolver;
     private boolean isFirstMove;
-    private final Set<String> flaggedHints; // Храним ячейки, помеченные как мины
+    private final Solver solver;
+    private boolean autoReveal;
+    private final IntList changed = new IntList();
+    private final IntQueue floodQueue = new IntQueue();
+    private final MoveJournal journal = new MoveJournal();
+    private boolean solverStale; // После отмены вывод Solver пересобирается при следующей подсказке
+    // Копия при записи: рассылка — проход по массиву без итераторов и упаковки
+    private GameListener[] listeners = NO_LISTENERS;
+    private ReplayRecorder recorder; // Запись партии для Replayer; null — не пишется
+    // Счётчики для проверки победы за O(1)
+    private int unrevealedSafe; // Безопасные клетки, которые ещё не открыты
+    private int correctFlags;   // Флаги на синих клетках
+    private int wrongFlags;     // Флаги на безопасных клетках
+    private int blueTotal;
+    // Отладочный режим: после каждого хода сверяем счётчики с полным обходом доски
+    private boolean verifyCounters = Boolean.getBoolean("hexgame.verifyCounters");
+    // Служебные партии (проверка решаемости, снимки подсказок, повторы записей) не попадают в Metrics
+    private final boolean instrumented;
 
     public Game(Board board) {
+        this(board, true);
+    }
+
+    static Game uninstrumented(Board board) {
+        return new Game(board, false);
+    }
+
+    private Game(Board board, boolean instrumented) {
+        if (board.getGrid().size() > MoveJournal.MAX_CELLS) {
+            throw new IllegalArgumentException("Доска больше " + MoveJournal.MAX_CELLS + " клеток не поддерживается");
+        }
         this.board = board;
+        this.instrumented = instrumented;
         this.gameOver = false;
         this.won = false;
         this.hint = null;
-        this.isFirstMove = true;
-        this.flaggedHints = new HashSet<>();
+        this.isFirstMove = !board.isInitialized();
+        this.solver = new Solver(board);
+        recountState();
+        // Доска может прийти уже сыгранной, например из сохранения
+        if (!isFirstMove) {
+            won = checkWin();
+            gameOver = won || board.isBlueRevealed();
+        }
+    }
+
+    public void addListener(GameListener listener) {
+        GameListener[] next = Arrays.copyOf(listeners, listeners.length + 1);
+        next[listeners.length] = listener;
+        listeners = next;
     }
 
-    public void openFirstCell(int r, int c) {
-        if (!board.getGrid().isValid(r, c) || !board.isActive(r, c)) return;
+    public void removeListener(GameListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                GameListener[] next = new GameListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, next, 0, i);
+                System.arraycopy(listeners, i + 1, next, i, next.length - i);
+                listeners = next;
+                return;
+            }
+        }
+    }
+
+    void setRecorder(ReplayRecorder recorder) { this.recorder = recorder; }
+
+    public int[] openFirstCell(int r, int c) {
+        if (!board.getGrid().isValid(r, c) || !board.isActive(r, c)) return NO_CELLS;
         if (isFirstMove) {
-            board.generateBoardForFirstClick(r, c);
+            // Доска может быть сгенерирована заранее, например в фоне окна игры
+            if (!board.isInitialized()) {
+                long start = metricsStart();
+                board.generateBoardForFirstClick(r, c);
+                metricsStop(Metrics.Timer.GENERATE, start);
+            }
+            count(Metrics.Counter.GAMES_STARTED);
             isFirstMove = false;
+            recountState();
+            for (GameListener listener : listeners) listener.boardGenerated(this);
         }
-        openCell(r, c);
+        return openCell(r, c);
+    }
+
+    // Возвращает индексы открытых клеток; в режиме автооткрытия — всю область нулевых подсказок с границей
+    public int[] openCell(int r, int c) {
+        long start = metricsStart();
+        int[] opened = reveal(r, c);
+        metricsStop(Metrics.Timer.MOVE, start);
+        return opened;
     }
 
-    public void openCell(int r, int c) {
-        if (gameOver || !board.getGrid().isValid(r, c) || !board.isActive(r, c)) return;
-        Cell cell = board.getCell(r, c);
-        if (cell.isFlagged() || cell.isRevealed()) return;
-        cell.reveal();
+    private int[] reveal(int r, int c) {
+        if (gameOver || !board.getGrid().isValid(r, c) || !board.isActive(r, c)) return NO_CELLS;
+        int index = board.getGrid().index(r, c);
+        if (board.isFlagged(index) || board.isRevealed(index)) return NO_CELLS;
         hint = null;
-        if (cell.isBlue()) {
+        if (recorder != null) recorder.open(index);
+        count(Metrics.Counter.MOVES);
+        journal.beginMove();
+        changed.clear();
+        if (board.isBlue(index)) {
+            board.reveal(index);
+            journal.record(MoveJournal.REVEAL, index);
+            changed.add(index);
             gameOver = true;
             won = false;
-        } else if (checkWin()) {
-            gameOver = true;
-            won = true;
-        }
-    }
-
-    public void toggleFlag(int r, int c) {
-        if (gameOver || !board.getGrid().isValid(r, c) || !board.isActive(r, c)) return;
-        Cell cell = board.getCell(r, c);
-        if (!cell.isRevealed()) {
-            cell.toggleFlag();
-            hint = null;
+            count(Metrics.Counter.GAMES_LOST);
+        } else {
+            revealSafe(index);
+            if (autoReveal && board.getClue(index) == 0) {
+                floodReveal(index);
+            }
             if (checkWin()) {
                 gameOver = true;
                 won = true;
+                count(Metrics.Counter.GAMES_WON);
             }
         }
+        for (GameListener listener : listeners) listener.cellsRevealed(this, changed);
+        if (gameOver) fireGameOver();
+        return changed.toArray();
+    }
+
+    private void revealSafe(int index) {
+        board.reveal(index);
+        unrevealedSafe--;
+        if (!solverStale) solver.cellRevealed(index);
+        changed.add(index);
+        journal.record(MoveJournal.REVEAL, index);
     }
 
-    private boolean checkWin() {
-        for (int r = 0; r < board.getGrid().getRows(); r++) {
-            for (int c = 0; c < board.getGrid().getCols(); c++) {
-                if (!board.isActive(r, c)) continue;
-                Cell cell = board.getCell(r, c);
-                if (cell.isBlue() && !cell.isFlagged()) return false;
-                if (!cell.isBlue() && !cell.isRevealed()) return false;
+    // Обход в ширину по явной очереди, без рекурсии; соседи нулевой клетки всегда безопасны
+    private void floodReveal(int start) {
+        HexGrid grid = board.getGrid();
+        floodQueue.clear();
+        floodQueue.add(start);
+        while (!floodQueue.isEmpty()) {
+            int index = floodQueue.poll();
+            for (int s = grid.neighborStart(index), e = grid.neighborEnd(index); s < e; s++) {
+                int neighbor = grid.neighborAt(s);
+                if (board.isRevealed(neighbor) || board.isFlagged(neighbor)) continue;
+                revealSafe(neighbor);
+                if (board.getClue(neighbor) == 0) floodQueue.add(neighbor);
             }
         }
-        return true;
     }
 
-    public int[] getHint() {
-        if (hint != null) return hint;
+    public void setAutoReveal(boolean autoReveal) {
+        if (recorder != null && autoReveal != this.autoReveal) recorder.autoReveal(autoReveal);
+        this.autoReveal = autoReveal;
+    }
 
-        // Проходим по всем открытым ячейкам
-        for (int r = 0; r < board.getGrid().getRows(); r++) {
-            for (int c = 0; c < board.getGrid().getCols(); c++) {
-                if (!board.isActive(r, c) || board.getCell(r, c).isBlue() || !board.getCell(r, c).isRevealed()) continue;
-                int clue = board.getCell(r, c).getClue();
-                int unrevealedNeighbors = 0;
-                int flaggedNeighbors = 0;
-                int unflaggedNeighbors = 0;
-                for (int neighbor : board.getGrid().getNeighbors(r, c)) {
-                    if (neighbor == -1) continue;
-                    int nr = neighbor / board.getGrid().getCols();
-                    int nc = neighbor % board.getGrid().getCols();
-                    if (!board.isActive(nr, nc)) continue;
-                    if (!board.getCell(nr, nc).isRevealed()) unrevealedNeighbors++;
-                    if (board.getCell(nr, nc).isFlagged()) flaggedNeighbors++;
-                    if (!board.getCell(nr, nc).isFlagged() && !board.getCell(nr, nc).isRevealed()) unflaggedNeighbors++;
-                }
+    public boolean isAutoReveal() { return autoReveal; }
 
-                // Правило 1: clue=0, открыть соседа
-                if (clue == 0 && unrevealedNeighbors > 0) {
-                    for (int neighbor : board.getGrid().getNeighbors(r, c)) {
-                        if (neighbor == -1) continue;
-                        int nr = neighbor / board.getGrid().getCols();
-                        int nc = neighbor % board.getGrid().getCols();
-                        if (!board.isActive(nr, nc) || board.getCell(nr, nc).isRevealed()) continue;
-                        String key = nr + "," + nc;
-                        if (!flaggedHints.contains(key)) { // Не противоречит предыдущим минам
-                            hint = new int[]{nr, nc, 0}; // Открыть
-                            return hint;
-                        }
-                    }
-                }
+    // true, если флаг поставлен или снят
+    public boolean toggleFlag(int r, int c) {
+        if (gameOver || !board.getGrid().isValid(r, c) || !board.isActive(r, c)) return false;
+        int index = board.getGrid().index(r, c);
+        if (board.isRevealed(index)) return false;
+        long start = metricsStart();
+        if (recorder != null) recorder.flag(index);
+        count(Metrics.Counter.MOVES);
+        journal.beginMove();
+        journal.record(MoveJournal.FLAG, index);
+        flipFlag(index);
+        hint = null;
+        if (checkWin()) {
+            gameOver = true;
+            won = true;
+            count(Metrics.Counter.GAMES_WON);
+            fireGameOver();
+        }
+        metricsStop(Metrics.Timer.MOVE, start);
+        return true;
+    }
 
-                // Правило 2: clue равно числу неоткрытых и непомеченных соседей, поставить флаг
-                if (unflaggedNeighbors > 0 && clue == unflaggedNeighbors) {
-                    for (int neighbor : board.getGrid().getNeighbors(r, c)) {
-                        if (neighbor == -1) continue;
-                        int nr = neighbor / board.getGrid().getCols();
-                        int nc = neighbor % board.getGrid().getCols();
-                        if (!board.isActive(nr, nc) || board.getCell(nr, nc).isRevealed() || board.getCell(nr, nc).isFlagged()) continue;
-                        hint = new int[]{nr, nc, 1}; // Поставить флаг
-                        flaggedHints.add(nr + "," + nc); // Запоминаем мину
-                        return hint;
-                    }
-                }
+    private void flipFlag(int index) {
+        board.toggleFlag(index);
+        int delta = board.isFlagged(index) ? 1 : -1;
+        if (board.isBlue(index)) {
+            correctFlags += delta;
+        } else {
+            wrongFlags += delta;
+        }
+        if (!solverStale) solver.flagChanged(index);
+        for (GameListener listener : listeners) listener.flagToggled(this, index, board.isFlagged(index));
+    }
 
-                // Правило 3: clue равно числу флагов, открыть остальных соседей
-                if (clue == flaggedNeighbors && unrevealedNeighbors > flaggedNeighbors) {
-                    for (int neighbor : board.getGrid().getNeighbors(r, c)) {
-                        if (neighbor == -1) continue;
-                        int nr = neighbor / board.getGrid().getCols();
-                        int nc = neighbor % board.getGrid().getCols();
-                        if (!board.isActive(nr, nc) || board.getCell(nr, nc).isRevealed() || board.getCell(nr, nc).isFlagged()) continue;
-                        String key = nr + "," + nc;
-                        if (!flaggedHints.contains(key)) { // Не противоречит предыдущим минам
-                            hint = new int[]{nr, nc, 0}; // Открыть
-                            return hint;
-                        }
-                    }
-                }
+    private void fireGameOver() {
+        for (GameListener listener : listeners) listener.gameOver(this, won);
+    }
 
-                // Правило 4: clue минус флаги равно числу оставшихся неоткрытых соседей, поставить флаги
-                if (unrevealedNeighbors > flaggedNeighbors && clue - flaggedNeighbors == unrevealedNeighbors - flaggedNeighbors) {
-                    for (int neighbor : board.getGrid().getNeighbors(r, c)) {
-                        if (neighbor == -1) continue;
-                        int nr = neighbor / board.getGrid().getCols();
-                        int nc = neighbor % board.getGrid().getCols();
-                        if (!board.isActive(nr, nc) || board.getCell(nr, nc).isRevealed() || board.getCell(nr, nc).isFlagged()) continue;
-                        hint = new int[]{nr, nc, 1}; // Поставить флаг
-                        flaggedHints.add(nr + "," + nc); // Запоминаем мину
-                        return hint;
-                    }
+    public boolean canUndo() { return journal.canUndo(); }
+    public boolean canRedo() { return journal.canRedo(); }
+
+    // Отменяет последний ход, в том числе проигрышный; время пропорционально числу клеток, изменённых ходом.
+    // Возвращает индексы изменённых клеток
+    public int[] undo() {
+        if (!journal.canUndo()) return NO_CELLS;
+        if (recorder != null) recorder.undo();
+        int end = journal.position();
+        int start = journal.stepBack();
+        changed.clear();
+        for (int i = end - 1; i >= start; i--) {
+            int entry = journal.entry(i);
+            int index = MoveJournal.index(entry);
+            if (MoveJournal.kind(entry) == MoveJournal.FLAG) {
+                flipFlag(index);
+            } else {
+                board.conceal(index);
+                if (!board.isBlue(index)) unrevealedSafe++;
+                changed.add(index);
+            }
+        }
+        int[] result = changed.size() == end - start ? changed.toArray() : journalCells(start, end);
+        if (!changed.isEmpty()) {
+            for (GameListener listener : listeners) listener.cellsConcealed(this, changed);
+        }
+        // Ходы делаются только в незаконченной партии, значит до хода она не была окончена
+        boolean wasOver = gameOver;
+        gameOver = false;
+        won = false;
+        hint = null;
+        solverStale = true;
+        if (wasOver) {
+            for (GameListener listener : listeners) listener.gameResumed(this);
+        }
+        return result;
+    }
+
+    // Повторяет отменённый ход по записям журнала, без повторного обхода области
+    public int[] redo() {
+        if (!journal.canRedo()) return NO_CELLS;
+        if (recorder != null) recorder.redo();
+        int start = journal.position();
+        int end = journal.stepForward();
+        changed.clear();
+        for (int i = start; i < end; i++) {
+            int entry = journal.entry(i);
+            int index = MoveJournal.index(entry);
+            if (MoveJournal.kind(entry) == MoveJournal.FLAG) {
+                flipFlag(index);
+            } else {
+                board.reveal(index);
+                if (board.isBlue(index)) {
+                    gameOver = true;
+                } else {
+                    unrevealedSafe--;
+                    if (!solverStale) solver.cellRevealed(index);
                 }
+                changed.add(index);
             }
         }
+        int[] result = changed.size() == end - start ? changed.toArray() : journalCells(start, end);
+        if (!changed.isEmpty()) {
+            for (GameListener listener : listeners) listener.cellsRevealed(this, changed);
+        }
+        if (checkWin()) {
+            gameOver = true;
+            won = true;
+        }
+        hint = null;
+        if (gameOver) fireGameOver();
+        return result;
+    }
+
+    // Клетки записей журнала [start, end), включая переключённые флаги
+    private int[] journalCells(int start, int end) {
+        int[] cells = new int[end - start];
+        for (int i = start; i < end; i++) cells[i - start] = MoveJournal.index(journal.entry(i));
+        return cells;
+    }
+
+    boolean checkWin() {
+        long start = metricsStart();
+        if (verifyCounters) verifyCounters();
+        boolean win = unrevealedSafe == 0 && wrongFlags == 0 && correctFlags == blueTotal;
+        metricsStop(Metrics.Timer.CHECK_WIN, start);
+        return win;
+    }
+
+    // Полный пересчёт счётчиков по словам плоскостей; нужен только после генерации или загрузки доски
+    private void recountState() {
+        unrevealedSafe = 0;
+        correctFlags = 0;
+        wrongFlags = 0;
+        blueTotal = 0;
+        long[] active = board.activePlane();
+        long[] blue = board.bluePlane();
+        long[] revealed = board.revealedPlane();
+        long[] flagged = board.flaggedPlane();
+        for (int w = 0; w < active.length; w++) {
+            long activeBlue = active[w] & blue[w];
+            long activeSafe = active[w] & ~blue[w];
+            blueTotal += Long.bitCount(activeBlue);
+            correctFlags += Long.bitCount(activeBlue & flagged[w]);
+            unrevealedSafe += Long.bitCount(activeSafe & ~revealed[w]);
+            wrongFlags += Long.bitCount(activeSafe & flagged[w]);
+        }
+    }
+
+    private void verifyCounters() {
+        int expectedUnrevealed = unrevealedSafe;
+        int expectedCorrect = correctFlags;
+        int expectedWrong = wrongFlags;
+        int expectedBlue = blueTotal;
+        recountState();
+        if (expectedUnrevealed != unrevealedSafe || expectedCorrect != correctFlags
+                || expectedWrong != wrongFlags || expectedBlue != blueTotal) {
+            throw new IllegalStateException("Счётчики рассинхронизированы: unrevealedSafe="
+                    + expectedUnrevealed + "/" + unrevealedSafe + ", correctFlags=" + expectedCorrect + "/" + correctFlags
+                    + ", wrongFlags=" + expectedWrong + "/" + wrongFlags + ", blueTotal=" + expectedBlue + "/" + blueTotal);
+        }
+    }
 
-        return null;
+    private long metricsStart() {
+        return instrumented ? Metrics.start() : 0;
+    }
+
+    private void metricsStop(Metrics.Timer timer, long start) {
+        if (instrumented) Metrics.stop(timer, start);
+    }
+
+    private void count(Metrics.Counter counter) {
+        if (instrumented) Metrics.increment(counter);
+    }
+
+    public void setVerifyCounters(boolean verifyCounters) { this.verifyCounters = verifyCounters; }
+    public int getUnrevealedSafeCount() { return unrevealedSafe; }
+    public int getCorrectFlagCount() { return correctFlags; }
+    public int getWrongFlagCount() { return wrongFlags; }
+
+    // {строка, столбец, действие}: выведенный ход или, если его нет, клетка с наименьшим риском (GUESS)
+    public int[] getHint() {
+        return getHint(NOT_CANCELLED);
     }
 
+    // Вариант для фонового потока: перебор вероятностей прерывается CancellationException, когда cancelled вернёт true
+    public int[] getHint(BooleanSupplier cancelled) {
+        count(Metrics.Counter.HINTS);
+        if (hint != null) return hint;
+        long start = metricsStart();
+        hint = computeHint(cancelled);
+        metricsStop(Metrics.Timer.HINT, start);
+        return hint;
+    }
+
+    private int[] computeHint(BooleanSupplier cancelled) {
+        // В законченной партии ходить некуда, даже если у Solver остались выводы
+        if (gameOver || isFirstMove) return null;
+        if (solverStale) {
+            solver.reset();
+            solverStale = false;
+        }
+        if (probabilitySolver == null) probabilitySolver = new ProbabilitySolver(board, solver);
+        HintService.Result result = findHint(board, solver, probabilitySolver, cancelled);
+        hintRisk = result.risk;
+        return result.hint;
+    }
+
+    // Общая часть подсказки Game и HintTracker. Ответ зависит только от позиции, а не от истории Solver,
+    // поэтому фоновые подсказки окна, Game и Replayer совпадают
+    static HintService.Result findHint(Board board, Solver solver, ProbabilitySolver probabilitySolver,
+                                       BooleanSupplier cancelled) {
+        HexGrid grid = board.getGrid();
+        int move = solver.lowestMove();
+        if (move >= 0) {
+            int index = Solver.moveCell(move);
+            int action = Solver.moveAction(move);
+            return new HintService.Result(new int[]{grid.rowOf(index), grid.colOf(index), action},
+                    action == Solver.FLAG ? 1 : 0);
+        }
+        ProbabilitySolver.Guess guess = probabilitySolver.lowestRisk(board.getBlueCount(), cancelled);
+        if (guess == null) return HintService.Result.NONE;
+        // Точный подсчёт мог доказать то, чего не вывел Solver: тогда это обычный ход, а не догадка
+        int action = !guess.exact ? GUESS
+                : guess.probability == 0 ? Solver.OPEN
+                : guess.probability == 1 ? Solver.FLAG
+                : GUESS;
+        return new HintService.Result(new int[]{grid.rowOf(guess.index), grid.colOf(guess.index), action},
+                guess.probability);
+    }
+
+    public double getHintRisk() { return hintRisk; }
+
     public boolean isGameOver() { return gameOver; }
     public boolean isWon() { return won; }
     public Board getBoard() { return board; }
+    public Solver getSolver() { return solver; }
 }
\ No newline at end of file
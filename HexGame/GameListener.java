@@ -0,0 +1,21 @@
+package HexGame;
+
+// Изменения партии по мере ходов, чтобы потребителям не приходилось пересматривать всю доску.
+// Вызывается в потоке, сделавшем ход. Списки клеток — общий буфер Game: читать можно только во время вызова
+public interface GameListener {
+    // Расстановка синих клеток создана первым ходом
+    default void boardGenerated(Game game) {}
+
+    // Все клетки, открытые одним ходом или повтором хода, одним событием
+    default void cellsRevealed(Game game, IntList cells) {}
+
+    // Клетки, снова закрытые отменой хода
+    default void cellsConcealed(Game game, IntList cells) {}
+
+    default void flagToggled(Game game, int index, boolean flagged) {}
+
+    default void gameOver(Game game, boolean won) {}
+
+    // Отмена хода вернула законченную партию в игру
+    default void gameResumed(Game game) {}
+}
\ No newline at end of file
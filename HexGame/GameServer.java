@@ -0,0 +1,351 @@
+package HexGame;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Сервер без Swing: много независимых партий за строковым протоколом на локальном сокете.
+// Партия не привязана к соединению и адресуется номером; каждая сериализуется своим монитором, общей блокировки нет.
+// Простаивающие партии вытесняются по таймауту, а при превышении лимита памяти — самые давние.
+//
+// Протокол (команда на строку, ответ одной строкой "OK ..." или "ERR сообщение"):
+//   NEW EASY|MEDIUM|HARD [NOGUESS]        -> OK id строк столбцов
+//   NEW строк столбцов плотность [NOGUESS] -> OK id строк столбцов
+//   OPEN id r c   -> OK состояние r:c:подсказка ...     (все открытые ходом клетки)
+//   FLAG id r c   -> OK состояние 0|1
+//   HINT id       -> OK r c OPEN|FLAG|GUESS риск  или  OK NONE
+//   STATE id      -> OK состояние строк столбцов строка/строка/...  ('#' вне доски, '.' закрыта, 'F' флаг, '*' синяя, цифра — подсказка)
+//   CLOSE id      -> OK
+//   QUIT
+// Состояние: PLAYING, WON или LOST.
+// Запуск: GameServer [порт] [лимит памяти, МБ] [таймаут простоя, с]
+public class GameServer {
+    public static final int DEFAULT_PORT = 7733;
+    public static final long DEFAULT_MEMORY_CAP = 512L << 20;
+    public static final long DEFAULT_IDLE_MILLIS = 10 * 60 * 1000;
+    private static final long SWEEP_MILLIS = 1000;
+    // Самая большая доска, которую можно создать командой NEW
+    private static final long MAX_CELLS = 4_000_000;
+
+    private final int port;
+    private final long memoryCap;
+    private final long idleMillis;
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    // Партии в порядке последнего обращения: самая давняя первая, вытеснение за O(log n) без обхода всех партий.
+    // Время обращения меняется только у партии, вынутой из множества, иначе порядок сломался бы
+    private final NavigableSet<Session> byAccess = new ConcurrentSkipListSet<>(
+            Comparator.<Session>comparingLong(session -> session.lastAccess).thenComparingLong(session -> session.id));
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicLong memoryUsed = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    // Поток на соединение; виртуальных потоков в JDK 17 нет, поэтому пул потоков-демонов без ограничения
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "hexcells-conn");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hexcells-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ServerSocket serverSocket;
+
+    private static final class Session {
+        final long id;
+        final Game game;
+        final long bytes;
+        volatile long lastAccess;
+
+        Session(long id, Game game) {
+            this.id = id;
+            this.game = game;
+            this.bytes = estimateBytes(game.getBoard().getGrid().size());
+            this.lastAccess = System.nanoTime();
+        }
+    }
+
+    public GameServer(int port, long memoryCap, long idleMillis) {
+        this.port = port;
+        this.memoryCap = memoryCap;
+        this.idleMillis = idleMillis;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        long cap = args.length > 1 ? Long.parseLong(args[1]) << 20 : DEFAULT_MEMORY_CAP;
+        long idle = args.length > 2 ? Long.parseLong(args[2]) * 1000 : DEFAULT_IDLE_MILLIS;
+        GameServer server = new GameServer(port, cap, idle);
+        server.start();
+        System.out.println("Сервер слушает 127.0.0.1:" + server.getPort());
+        server.acceptLoop();
+    }
+
+    // Привязка сокета и запуск очистки; принимать соединения начинает acceptLoop
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+        sweeper.scheduleWithFixedDelay(this::evictIdle, SWEEP_MILLIS, SWEEP_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public int getPort() { return serverSocket.getLocalPort(); }
+    public int sessionCount() { return sessions.size(); }
+    public long memoryUsed() { return memoryUsed.get(); }
+    public long evictedCount() { return evicted.get(); }
+
+    public void acceptLoop() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                if (serverSocket.isClosed()) return;
+                throw e;
+            }
+            connections.execute(() -> serve(socket));
+        }
+    }
+
+    public void close() throws IOException {
+        sweeper.shutdownNow();
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                if (line.trim().equalsIgnoreCase("QUIT")) break;
+                out.write(handle(line));
+                out.write('\n');
+                // Следующая команда уже в буфере — ответы уходят одной записью
+                if (!in.ready()) out.flush();
+            }
+            out.flush();
+        } catch (IOException e) {
+            // Клиент оборвал соединение; партии остаются до вытеснения
+        }
+    }
+
+    // Разбор и выполнение одной команды; ответ без перевода строки
+    String handle(String line) {
+        String[] parts = line.trim().split("\\s+");
+        try {
+            switch (parts[0].toUpperCase(Locale.ROOT)) {
+                case "NEW":
+                    return create(parts);
+                case "OPEN":
+                    return open(session(parts, 4), parts);
+                case "FLAG":
+                    return flag(session(parts, 4), parts);
+                case "HINT":
+                    return hint(session(parts, 2));
+                case "STATE":
+                    return state(session(parts, 2));
+                case "CLOSE":
+                    remove(session(parts, 2));
+                    return "OK";
+                default:
+                    return "ERR неизвестная команда " + parts[0];
+            }
+        } catch (IllegalArgumentException e) {
+            return "ERR " + e.getMessage();
+        } catch (RuntimeException e) {
+            // Сбой одной команды не должен рвать соединение и остальные партии клиента
+            System.err.println("Ошибка команды \"" + line.trim() + "\": " + e);
+            return "ERR " + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    private String create(String[] parts) {
+        boolean noGuess = parts[parts.length - 1].equalsIgnoreCase("NOGUESS");
+        int argc = parts.length - (noGuess ? 1 : 0);
+        Board board;
+        if (argc == 2) {
+            Board.Level level;
+            try {
+                level = Board.Level.valueOf(parts[1].toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("неизвестный уровень " + parts[1]);
+            }
+            board = BoardPool.shared().newBoard(level, noGuess);
+        } else if (argc == 4) {
+            int rows = parseInt(parts[1]);
+            int cols = parseInt(parts[2]);
+            double density = Double.parseDouble(parts[3]);
+            if (rows <= 0 || cols <= 0 || (long) rows * cols > MAX_CELLS) throw new IllegalArgumentException("неверный размер доски");
+            if (!(density >= 0 && density < 1)) throw new IllegalArgumentException("плотность вне [0, 1)");
+            board = new Board(rows, cols, density, true, System.nanoTime());
+            board.setNoGuess(noGuess);
+        } else {
+            throw new IllegalArgumentException("NEW EASY|MEDIUM|HARD [NOGUESS] или NEW строк столбцов плотность [NOGUESS]");
+        }
+        Game game = new Game(board);
+        game.setAutoReveal(true);
+        Session session = new Session(nextId.getAndIncrement(), game);
+        memoryUsed.addAndGet(session.bytes);
+        sessions.put(session.id, session);
+        byAccess.add(session);
+        evictOverCap();
+        return "OK " + session.id + " " + board.getGrid().getRows() + " " + board.getGrid().getCols();
+    }
+
+    private String open(Session session, String[] parts) {
+        int r = parseInt(parts[2]);
+        int c = parseInt(parts[3]);
+        synchronized (session) {
+            Game game = session.game;
+            Board board = game.getBoard();
+            HexGrid grid = board.getGrid();
+            if (!grid.isValid(r, c)) throw new IllegalArgumentException("клетка вне доски");
+            int[] opened = game.openFirstCell(r, c);
+            StringBuilder sb = new StringBuilder(16 + opened.length * 10).append("OK ").append(stateName(game));
+            for (int index : opened) {
+                sb.append(' ').append(grid.rowOf(index)).append(':').append(grid.colOf(index)).append(':')
+                        .append(board.isBlue(index) ? "*" : Integer.toString(board.getClue(index)));
+            }
+            return sb.toString();
+        }
+    }
+
+    private String flag(Session session, String[] parts) {
+        int r = parseInt(parts[2]);
+        int c = parseInt(parts[3]);
+        synchronized (session) {
+            Game game = session.game;
+            HexGrid grid = game.getBoard().getGrid();
+            if (!grid.isValid(r, c)) throw new IllegalArgumentException("клетка вне доски");
+            game.toggleFlag(r, c);
+            return "OK " + stateName(game) + " " + (game.getBoard().isFlagged(grid.index(r, c)) ? 1 : 0);
+        }
+    }
+
+    private String hint(Session session) {
+        synchronized (session) {
+            Game game = session.game;
+            int[] hint = game.getHint();
+            if (hint == null) return "OK NONE";
+            String action = hint[2] == Game.GUESS ? "GUESS" : hint[2] == Solver.FLAG ? "FLAG" : "OPEN";
+            return String.format(Locale.ROOT, "OK %d %d %s %.4f", hint[0], hint[1], action, game.getHintRisk());
+        }
+    }
+
+    private String state(Session session) {
+        synchronized (session) {
+            Game game = session.game;
+            Board board = game.getBoard();
+            HexGrid grid = board.getGrid();
+            StringBuilder sb = new StringBuilder(grid.size() + grid.getRows() + 32)
+                    .append("OK ").append(stateName(game)).append(' ')
+                    .append(grid.getRows()).append(' ').append(grid.getCols()).append(' ');
+            for (int r = 0; r < grid.getRows(); r++) {
+                if (r > 0) sb.append('/');
+                for (int c = 0; c < grid.getCols(); c++) {
+                    int i = grid.index(r, c);
+                    char ch;
+                    if (!board.isActive(i)) ch = '#';
+                    else if (board.isFlagged(i)) ch = 'F';
+                    else if (!board.isRevealed(i)) ch = '.';
+                    else if (board.isBlue(i)) ch = '*';
+                    else ch = (char) ('0' + board.getClue(i));
+                    sb.append(ch);
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    private static String stateName(Game game) {
+        return !game.isGameOver() ? "PLAYING" : game.isWon() ? "WON" : "LOST";
+    }
+
+    private Session session(String[] parts, int argc) {
+        if (parts.length != argc) throw new IllegalArgumentException("ожидалось аргументов: " + (argc - 1));
+        Session session = sessions.get(parseLong(parts[1]));
+        if (session == null) throw new IllegalArgumentException("нет партии " + parts[1]);
+        touch(session);
+        return session;
+    }
+
+    // Перестановка в конец порядка обращений; если партию уже вытеснили, она туда не возвращается
+    private void touch(Session session) {
+        synchronized (session) {
+            if (!byAccess.remove(session)) return;
+            session.lastAccess = System.nanoTime();
+            byAccess.add(session);
+        }
+    }
+
+    // Под монитором партии, чтобы touch не вернул в порядок обращений уже удалённую партию
+    private boolean remove(Session session) {
+        synchronized (session) {
+            byAccess.remove(session);
+            if (!sessions.remove(session.id, session)) return false;
+            memoryUsed.addAndGet(-session.bytes);
+            return true;
+        }
+    }
+
+    // Обход с самой давней партии до первой недавней
+    private void evictIdle() {
+        long now = System.nanoTime();
+        for (Session session : byAccess) {
+            if (now - session.lastAccess <= idleMillis * 1_000_000L) break;
+            if (remove(session)) evicted.incrementAndGet();
+        }
+        evictOverCap();
+    }
+
+    // Пока оценка памяти выше лимита, вытесняем партию с самым давним обращением
+    private void evictOverCap() {
+        while (memoryUsed.get() > memoryCap && sessions.size() > 1) {
+            Session oldest = byAccess.pollFirst();
+            if (oldest == null) return;
+            if (remove(oldest)) evicted.incrementAndGet();
+        }
+    }
+
+    // Плоскости доски и Solver по биту на клетку, подсказки по байту, таблица смежности до шести int и начало списка
+    static long estimateBytes(int cells) {
+        return 7L * ((cells + 63) / 64) * 8 + cells + 4L * cells * 7 + 2048;
+    }
+
+    private static int parseInt(String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("не число: " + s);
+        }
+    }
+
+    private static long parseLong(String s) {
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("не число: " + s);
+        }
+    }
+}
\ No newline at end of file
@@ -1,8 +1,18 @@
 package HexGame;
 
 public class HexGrid {
+    // Смещения соседей (строка, столбец), зависят от четности столбца
+    private static final int[] EVEN_DR = {-1, 1, 0, 0, -1, -1};
+    private static final int[] EVEN_DC = {0, 0, -1, 1, -1, 1};
+    private static final int[] ODD_DR = {-1, 1, 0, 0, 1, 1};
+    private static final int[] ODD_DC = {0, 0, -1, 1, -1, 1};
+
     private final int rows;
     private final int cols;
+    private long[] activeMask;
+    // Таблица смежности в формате CSR: соседи клетки i лежат в adjacency[adjStart[i] .. adjStart[i + 1])
+    private volatile int[] adjStart;
+    private int[] adjacency;
 
     public HexGrid(int rows, int cols) {
         this.rows = rows;
@@ -11,30 +21,93 @@ public class HexGrid {
 
     public int getRows() { return rows; }
     public int getCols() { return cols; }
+    public int size() { return rows * cols; }
 
     public boolean isValid(int r, int c) {
         return r >= 0 && r < rows && c >= 0 && c < cols;
     }
 
-    public int[] getNeighbors(int r, int c) {
-        int[] neighbors = new int[6];
-        for (int i = 0; i < 6; i++) {
-            neighbors[i] = -1;
-        }
+    // Сосед k (0..5) клетки (r, c) на неограниченной плоскости, без проверки границ.
+    // Чётность столбца берётся как c & 1, поэтому правило едино и для отрицательных столбцов
+    public static int neighborRow(int r, int c, int k) {
+        return r + ((c & 1) == 0 ? EVEN_DR[k] : ODD_DR[k]);
+    }
+
+    public static int neighborCol(int r, int c, int k) {
+        return c + ((c & 1) == 0 ? EVEN_DC[k] : ODD_DC[k]);
+    }
+
+    public int index(int r, int c) { return r * cols + c; }
+    public int rowOf(int index) { return index / cols; }
+    public int colOf(int index) { return index % cols; }
+
+    // Таблица смежности строится при первом обращении к соседям, чтобы большие доски без неё не платили память
+    public void setActiveMask(long[] active) {
+        this.activeMask = active;
+        this.adjStart = null;
+    }
+
+    private int[] topology() {
+        int[] start = adjStart;
+        return start != null ? start : buildTopology();
+    }
 
-        // Гексагональная сетка, смещение зависит от четности столбца
-        int[][] offsets = (c % 2 == 0) ?
-                new int[][] {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, -1}, {-1, 1}} : // Чётный столбец
-                new int[][] {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {1, -1}, {1, 1}};   // Нечётный столбец
-
-        int index = 0;
-        for (int[] offset : offsets) {
-            int nr = r + offset[0];
-            int nc = c + offset[1];
-            if (isValid(nr, nc)) {
-                neighbors[index] = nr * cols + nc;
+    // Строит таблицу смежности один раз; соседи отфильтрованы по маске активных клеток
+    private synchronized int[] buildTopology() {
+        if (adjStart != null) return adjStart;
+        long[] active = activeMask;
+        int[] start = new int[rows * cols + 1];
+        int[] adj = new int[rows * cols * 6];
+        int slot = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                start[r * cols + c] = slot;
+                if (!Bits.get(active, r * cols + c)) continue;
+                int[] dr = (c & 1) == 0 ? EVEN_DR : ODD_DR;
+                int[] dc = (c & 1) == 0 ? EVEN_DC : ODD_DC;
+                for (int k = 0; k < 6; k++) {
+                    int nr = r + dr[k];
+                    int nc = c + dc[k];
+                    if (isValid(nr, nc) && Bits.get(active, nr * cols + nc)) {
+                        adj[slot++] = nr * cols + nc;
+                    }
+                }
             }
-            index++;
+        }
+        start[rows * cols] = slot;
+        this.adjacency = adj;
+        this.adjStart = start;
+        return start;
+    }
+
+    // Курсор по соседям без выделения памяти:
+    // for (int s = grid.neighborStart(i), e = grid.neighborEnd(i); s < e; s++) { int n = grid.neighborAt(s); }
+    // Оба конца берутся через topology(), поэтому порядок вызовов не важен
+    public int neighborStart(int index) { return topology()[index]; }
+    public int neighborEnd(int index) { return topology()[index + 1]; }
+    public int neighborAt(int slot) { return adjacency[slot]; }
+
+    public int degree(int index) {
+        int[] start = topology();
+        return start[index + 1] - start[index];
+    }
+
+    public boolean areNeighbors(int a, int b) {
+        for (int s = neighborStart(a), e = neighborEnd(a); s < e; s++) {
+            if (adjacency[s] == b) return true;
+        }
+        return false;
+    }
+
+    // Старый API: все шесть направлений без учёта маски, -1 для клеток за границей
+    public int[] getNeighbors(int r, int c) {
+        int[] neighbors = new int[6];
+        int[] dr = (c & 1) == 0 ? EVEN_DR : ODD_DR;
+        int[] dc = (c & 1) == 0 ? EVEN_DC : ODD_DC;
+        for (int k = 0; k < 6; k++) {
+            int nr = r + dr[k];
+            int nc = c + dc[k];
+            neighbors[k] = isValid(nr, nc) ? nr * cols + nc : -1;
         }
         return neighbors;
     }
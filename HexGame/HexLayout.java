@@ -0,0 +1,139 @@
+package HexGame;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+
+// Геометрия шестиугольников на экране и камера: масштаб меняет размер клетки, сдвиг — смещения.
+// Контур пересчитывается только при смене масштаба
+public class HexLayout {
+    public static final double MIN_ZOOM = 0.05;
+    public static final double MAX_ZOOM = 4;
+    // Мельче этого размера клетки рисуются упрощённо: заливка без контура и текста
+    public static final double DETAIL_MIN_SIZE = 10;
+
+    private final double baseSize;
+    private final double sqrt3 = Math.sqrt(3);
+    private double hexSize;
+    private double zoom = 1;
+    private Path2D outline; // Шаблон шестиугольника с центром в (0, 0)
+    private double offsetX;
+    private double offsetY;
+
+    public HexLayout(double hexSize) {
+        this.baseSize = hexSize;
+        this.hexSize = hexSize;
+        this.outline = buildOutline(hexSize);
+    }
+
+    private static Path2D buildOutline(double hexSize) {
+        Path2D outline = new Path2D.Double();
+        for (int i = 0; i < 6; i++) {
+            double angle = Math.toRadians(60 * i);
+            double px = hexSize * Math.cos(angle);
+            double py = hexSize * Math.sin(angle);
+            if (i == 0) {
+                outline.moveTo(px, py);
+            } else {
+                outline.lineTo(px, py);
+            }
+        }
+        outline.closePath();
+        return outline;
+    }
+
+    public double getHexSize() { return hexSize; }
+    public Shape getOutline() { return outline; }
+    public double getZoom() { return zoom; }
+    public double getOffsetX() { return offsetX; }
+    public double getOffsetY() { return offsetY; }
+    public boolean isDetailed() { return hexSize >= DETAIL_MIN_SIZE; }
+
+    public void setOffsets(double offsetX, double offsetY) {
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+    }
+
+    public void pan(double dx, double dy) {
+        offsetX += dx;
+        offsetY += dy;
+    }
+
+    // Масштаб с неподвижной точкой экрана (anchorX, anchorY): координаты клеток линейны по размеру клетки
+    public void setZoom(double zoom, double anchorX, double anchorY) {
+        zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+        if (zoom == this.zoom) return;
+        double newSize = baseSize * zoom;
+        double factor = newSize / hexSize;
+        offsetX = anchorX - (anchorX - offsetX) * factor;
+        offsetY = anchorY - (anchorY - offsetY) * factor;
+        this.zoom = zoom;
+        this.hexSize = newSize;
+        this.outline = buildOutline(newSize);
+    }
+
+    public int gridWidth(int cols) { return (int) (cols * hexSize * 1.5 + hexSize); }
+    public int gridHeight(int rows) { return (int) (rows * hexSize * sqrt3 + hexSize); }
+
+    // Нечётные столбцы смещены вниз на половину высоты шестиугольника
+    public double centerX(int c) {
+        return c * hexSize * 1.5 + hexSize + offsetX;
+    }
+
+    public double centerY(int r, int c) {
+        return r * hexSize * sqrt3 + (c % 2 == 0 ? hexSize : hexSize * (sqrt3 / 2 + 1)) + offsetY;
+    }
+
+    // Прямоугольник перерисовки клетки с запасом на сглаживание контура
+    public Rectangle cellBounds(int r, int c) {
+        double x = centerX(c);
+        double y = centerY(r, c);
+        double halfHeight = hexSize * sqrt3 / 2;
+        int left = (int) Math.floor(x - hexSize) - 2;
+        int top = (int) Math.floor(y - halfHeight) - 2;
+        return new Rectangle(left, top, (int) Math.ceil(2 * hexSize) + 4, (int) Math.ceil(2 * halfHeight) + 4);
+    }
+
+    // Точка экрана в клетку {строка, столбец} за O(1): пиксель -> дробные осевые координаты -> округление в кубических.
+    // Раскладка совпадает с centerX/centerY: плоские шестиугольники, нечётные столбцы смещены вниз
+    public int[] hexAt(double px, double py) {
+        double x = px - offsetX - hexSize;
+        double y = py - offsetY - hexSize;
+        double q = (2.0 / 3 * x) / hexSize;
+        double axialRow = (-1.0 / 3 * x + sqrt3 / 3 * y) / hexSize;
+        double s = -q - axialRow;
+
+        long rq = Math.round(q);
+        long rr = Math.round(axialRow);
+        long rs = Math.round(s);
+        double dq = Math.abs(rq - q);
+        double dr = Math.abs(rr - axialRow);
+        double ds = Math.abs(rs - s);
+        if (dq > dr && dq > ds) {
+            rq = -rr - rs;
+        } else if (dr > ds) {
+            rr = -rq - rs;
+        }
+
+        int c = (int) rq;
+        int r = (int) (rr + (rq - (rq & 1)) / 2);
+        return new int[]{r, c};
+    }
+
+    // Диапазоны столбцов и строк, пересекающих прямоугольник; границы включительно, без учёта размеров доски
+    public int firstCol(double x) {
+        return (int) Math.floor((x - offsetX - 2 * hexSize) / (hexSize * 1.5));
+    }
+
+    public int lastCol(double x) {
+        return (int) Math.ceil((x - offsetX) / (hexSize * 1.5));
+    }
+
+    public int firstRow(double y) {
+        return (int) Math.floor((y - offsetY - hexSize - hexSize * sqrt3) / (hexSize * sqrt3));
+    }
+
+    public int lastRow(double y) {
+        return (int) Math.ceil((y - offsetY) / (hexSize * sqrt3));
+    }
+}
\ No newline at end of file
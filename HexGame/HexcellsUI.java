@@ -3,147 +3,423 @@ package HexGame;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.Path2D;
 import java.awt.image.BufferedImage;
-import javax.imageio.ImageIO;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HexcellsUI extends JFrame {
+    // Поиск доски без угадывания может занять весь бюджет NoGuessGenerator, поэтому идёт вне потока интерфейса
+    private static final ExecutorService GENERATOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "hexcells-generate");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Game game;
     private final HexGrid grid;
     private final Board.Level level;
-    private final int hexSize = 30;
-    private final double sqrt3 = Math.sqrt(3);
-    private double offsetX;
-    private double offsetY;
+    private final boolean noGuess;
+    private final HexLayout layout = new HexLayout(30);
+    private final Autosaver autosaver = new Autosaver(SaveFile.AUTOSAVE);
+    private final HintService hints;
+    private ReplayRecorder recorder; // Запись партии с первого хода; null для загруженных и уже записанных
     private HexPanel hexPanel;
-    private BufferedImage backgroundImage;
+    private final JProgressBar generationProgress = new JProgressBar();
+    private boolean generating; // Доска первого хода ищется в фоне; ходы до её готовности не принимаются
+    private boolean fitted;      // Камера уже вписала доску в окно
+    private int panelWidth;      // Размер панели при прошлом изменении окна
+    private int panelHeight;
 
     public HexcellsUI(Board.Level level) {
-        this.game = new Game(new Board(level));
-        this.grid = game.getBoard().getGrid();
-        this.level = level;
+        this(level, false);
+    }
+
+    public HexcellsUI(Board.Level level, boolean noGuess) {
+        this(newGame(level, noGuess));
+    }
+
+    // Окно для готовой партии, например загруженной из сохранения
+    public HexcellsUI(Game game) {
+        Board board = game.getBoard();
+        this.game = game;
+        this.grid = board.getGrid();
+        this.level = board.getLevel();
+        this.noGuess = board.isNoGuess();
+        this.hints = new HintService(game);
+        if (!board.isInitialized()) recorder = new ReplayRecorder(game);
         setTitle("Hexcells Infinite - Игра");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setResizable(true);
         setMinimumSize(new Dimension(400, 400));
 
-        // Загружаем фоновое изображение
-        try {
-            backgroundImage = ImageIO.read(new File("background.png"));
-        } catch (IOException e) {
-            System.err.println("Не удалось загрузить фоновое изображение: " + e.getMessage());
-            backgroundImage = null;
-        }
-
         // Панель управления
         JPanel controlPanel = new JPanel();
         controlPanel.setLayout(new FlowLayout());
 
-        // Кнопка подсказки
+        // Кнопка подсказки: ответ обычно уже посчитан в фоне после прошлого хода
         JButton hintButton = new JButton("Подсказка");
         hintButton.addActionListener(e -> {
-            int[] hint = game.getHint();
-            if (hint != null) {
-                hexPanel.setHint(hint);
-                hexPanel.repaint();
-            } else {
-                JOptionPane.showMessageDialog(this, "Нет доступных подсказок!");
-            }
+            if (!hints.isReady()) hexPanel.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            hints.request(this::showHint);
         });
         controlPanel.add(hintButton);
 
+        // Отмена и повтор ходов; также Ctrl+Z и Ctrl+Y
+        JButton undoButton = new JButton("Отменить");
+        undoButton.addActionListener(e -> undo());
+        controlPanel.add(undoButton);
+
+        JButton redoButton = new JButton("Повторить");
+        redoButton.addActionListener(e -> redo());
+        controlPanel.add(redoButton);
+
+        // Автоматическое открытие областей с нулевой подсказкой
+        JCheckBox autoRevealBox = new JCheckBox("Автооткрытие");
+        autoRevealBox.setOpaque(false);
+        autoRevealBox.setSelected(game.isAutoReveal());
+        autoRevealBox.addActionListener(e -> game.setAutoReveal(autoRevealBox.isSelected()));
+        controlPanel.add(autoRevealBox);
+
+        // Вписать доску в окно заново после масштаба и сдвига
+        JButton fitButton = new JButton("Вписать");
+        fitButton.addActionListener(e -> {
+            fitBoard();
+            hexPanel.repaint();
+        });
+        controlPanel.add(fitButton);
+
+        // Сохранение в выбранный файл
+        JButton saveButton = new JButton("Сохранить");
+        saveButton.addActionListener(e -> saveAs());
+        controlPanel.add(saveButton);
+
         // Кнопка меню
         JButton menuButton = new JButton("Меню");
         menuButton.addActionListener(e -> {
+            autosaver.close(game);
             dispose();
             new MainMenu();
         });
         controlPanel.add(menuButton);
 
+        // Индикатор поиска доски без угадывания после первого клика
+        generationProgress.setIndeterminate(true);
+        generationProgress.setString("Поиск доски без угадывания");
+        generationProgress.setStringPainted(true);
+        generationProgress.setVisible(false);
+        controlPanel.add(generationProgress);
+
         // Основная панель
         hexPanel = new HexPanel();
+        game.addListener(hexPanel);
         setLayout(new BorderLayout());
         add(controlPanel, BorderLayout.NORTH);
         add(hexPanel, BorderLayout.CENTER);
 
+        InputMap inputMap = getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        ActionMap actionMap = getRootPane().getActionMap();
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo");
+        actionMap.put("undo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) { undo(); }
+        });
+        actionMap.put("redo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) { redo(); }
+        });
+
         // Центрируем окно
-        calculateOffsets();
+        fitBoard();
         pack();
         setLocationRelativeTo(null);
         setVisible(true);
 
+        // Незаконченная партия сохраняется при закрытии окна
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                autosaver.close(game);
+                saveReplay();
+            }
+        });
+
         // Слушатель изменения размера окна
         addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
-                calculateOffsets();
+                if (!fitted) {
+                    fitBoard();
+                } else {
+                    // Центр вида остаётся на месте
+                    layout.pan((hexPanel.getWidth() - panelWidth) / 2.0, (hexPanel.getHeight() - panelHeight) / 2.0);
+                }
+                panelWidth = hexPanel.getWidth();
+                panelHeight = hexPanel.getHeight();
                 hexPanel.repaint();
             }
         });
     }
 
-    private void calculateOffsets() {
+    @Override
+    public void dispose() {
+        hints.cancel();
+        saveReplay();
+        super.dispose();
+    }
+
+    // Запись партии пишется один раз, когда окно закрывается; пустые партии без ходов не пишутся
+    private void saveReplay() {
+        if (recorder == null || !recorder.hasMoves()) return;
+        try {
+            recorder.write(ReplayRecorder.DIRECTORY);
+        } catch (IOException e) {
+            System.err.println("Не удалось записать партию: " + e.getMessage());
+        }
+        recorder = null;
+    }
+
+    private void showHint(HintService.Result result) {
+        hexPanel.setCursor(Cursor.getDefaultCursor());
+        int[] hint = result.hint;
+        if (recorder != null) recorder.hint(hint);
+        if (hint != null && hint[2] == Game.GUESS) {
+            hexPanel.setHint(hint);
+            JOptionPane.showMessageDialog(this, String.format("Безопасного хода нет. Наименьший риск: %.1f%%",
+                    result.risk * 100));
+        } else if (hint != null) {
+            hexPanel.setHint(hint);
+        } else {
+            JOptionPane.showMessageDialog(this, "Нет доступных подсказок!");
+        }
+    }
+
+    private static Game newGame(Board.Level level, boolean noGuess) {
+        return new Game(BoardPool.shared().newBoard(level, noGuess));
+    }
+
+    private void saveAs() {
+        JFileChooser chooser = new JFileChooser(new File("."));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path path = chooser.getSelectedFile().toPath();
+        try {
+            SaveFile.write(game, path);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Не удалось сохранить игру: " + e.getMessage());
+        }
+    }
+
+    private void open(int row, int col) {
+        Board board = game.getBoard();
+        if (!board.isInitialized() && board.isNoGuess() && board.isActive(row, col)) {
+            generateInBackground(row, col);
+            return;
+        }
+        if (game.openFirstCell(row, col).length > 0) afterMove();
+        if (game.isGameOver() && !game.isWon()) {
+            hexPanel.showGameOverDialog();
+        }
+    }
+
+    // Первый клик в режиме без угадывания: доска ищется в фоне, клетка открывается в потоке интерфейса по готовности
+    private void generateInBackground(int row, int col) {
+        generating = true;
+        generationProgress.setVisible(true);
+        hexPanel.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        Board board = game.getBoard();
+        CompletableFuture.runAsync(() -> {
+            long start = Metrics.start();
+            board.generateBoardForFirstClick(row, col);
+            Metrics.stop(Metrics.Timer.GENERATE, start);
+        }, GENERATOR).whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            generating = false;
+            generationProgress.setVisible(false);
+            hexPanel.setCursor(Cursor.getDefaultCursor());
+            if (error != null) {
+                System.err.println("Не удалось сгенерировать доску: " + error);
+                return;
+            }
+            if (isDisplayable()) open(row, col);
+        }));
+    }
+
+    private void undo() {
+        if (generating) return;
+        if (game.undo().length > 0) afterUndoRedo();
+    }
+
+    private void redo() {
+        if (generating || game.redo().length == 0) return;
+        afterUndoRedo();
+        if (game.isGameOver() && !game.isWon()) {
+            hexPanel.showGameOverDialog();
+        }
+    }
+
+    private void afterUndoRedo() {
+        hexPanel.setHint(null);
+        afterMove();
+    }
+
+    // После каждого хода: незаконченная партия откладывается на автосохранение, законченная стирает его;
+    // следующая подсказка начинает считаться в фоне. Ожидаемая подсказка отменена ходом и уже не придёт,
+    // поэтому курсор ожидания снимается здесь
+    private void afterMove() {
+        hints.positionChanged();
+        hexPanel.setCursor(Cursor.getDefaultCursor());
+        if (game.isGameOver()) {
+            autosaver.discard();
+        } else {
+            autosaver.requestSave(game);
+        }
+    }
+
+    // Масштаб, при котором доска целиком помещается в панель (не крупнее исходного), и центрирование
+    private void fitBoard() {
         int windowWidth = hexPanel.getWidth();
         int windowHeight = hexPanel.getHeight();
-        int gridWidth = (int) (grid.getCols() * hexSize * 1.5 + hexSize);
-        int gridHeight = (int) (grid.getRows() * hexSize * sqrt3 + hexSize);
-        offsetX = Math.max((windowWidth - gridWidth) / 2.0, 0);
-        offsetY = Math.max((windowHeight - gridHeight) / 2.0, 0);
+        if (windowWidth > 0 && windowHeight > 0) {
+            double unitWidth = layout.gridWidth(grid.getCols()) / layout.getZoom();
+            double unitHeight = layout.gridHeight(grid.getRows()) / layout.getZoom();
+            layout.setZoom(Math.min(1, Math.min(windowWidth / unitWidth, windowHeight / unitHeight)), 0, 0);
+            fitted = true;
+        }
+        int gridWidth = layout.gridWidth(grid.getCols());
+        int gridHeight = layout.gridHeight(grid.getRows());
+        layout.setOffsets(Math.max((windowWidth - gridWidth) / 2.0, 0), Math.max((windowHeight - gridHeight) / 2.0, 0));
     }
 
-    private class HexPanel extends JPanel {
+    private class HexPanel extends JPanel implements GameListener {
         private int[] hint;
+        private int[] hover; // Клетка под курсором
+        private final BoardRenderer renderer = new BoardRenderer(game, layout);
+        private Point dragFrom; // Сдвиг камеры: средняя кнопка или левая с Shift
 
         public HexPanel() {
             setBackground(Color.WHITE);
-            addMouseListener(new MouseAdapter() {
+            AssetCache.repaintWhenLoaded(this);
+            MouseAdapter mouse = new MouseAdapter() {
                 @Override
                 public void mousePressed(MouseEvent e) {
+                    if (SwingUtilities.isMiddleMouseButton(e) || (SwingUtilities.isLeftMouseButton(e) && e.isShiftDown())) {
+                        dragFrom = e.getPoint();
+                        return;
+                    }
                     int[] coords = getHexAt(e.getX(), e.getY());
-                    if (coords != null) {
+                    if (coords != null && !generating) {
+                        // Перерисовку изменившихся клеток делают события игры
                         if (e.getButton() == MouseEvent.BUTTON1) {
-                            game.openFirstCell(coords[0], coords[1]);
-                            if (game.isGameOver() && !game.isWon()) {
-                                showGameOverDialog();
-                            }
+                            open(coords[0], coords[1]);
                         } else if (e.getButton() == MouseEvent.BUTTON3) {
-                            game.toggleFlag(coords[0], coords[1]);
+                            if (game.toggleFlag(coords[0], coords[1])) afterMove();
                         }
-                        hint = null;
-                        repaint();
+                        setHint(null);
                     }
                 }
-            });
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    dragFrom = null;
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    if (dragFrom == null) return;
+                    layout.pan(e.getX() - dragFrom.x, e.getY() - dragFrom.y);
+                    dragFrom = e.getPoint();
+                    repaint();
+                }
+
+                @Override
+                public void mouseExited(MouseEvent e) {
+                    setHover(null);
+                }
+
+                @Override
+                public void mouseMoved(MouseEvent e) {
+                    setHover(getHexAt(e.getX(), e.getY()));
+                }
+
+                // Колесо масштабирует вокруг курсора
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    double zoom = layout.getZoom() * Math.pow(1.1, -e.getPreciseWheelRotation());
+                    layout.setZoom(zoom, e.getX(), e.getY());
+                    repaint();
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
+        }
+
+        // События игры: перерисовываются только изменившиеся клетки, затемнение победы — всей панелью
+        @Override
+        public void cellsRevealed(Game game, IntList cells) {
+            repaintCells(cells);
+        }
+
+        @Override
+        public void cellsConcealed(Game game, IntList cells) {
+            repaintCells(cells);
+        }
+
+        @Override
+        public void flagToggled(Game game, int index, boolean flagged) {
+            repaintCell(grid.rowOf(index), grid.colOf(index));
+        }
+
+        @Override
+        public void gameOver(Game game, boolean won) {
+            if (won) repaint();
+        }
+
+        @Override
+        public void gameResumed(Game game) {
+            repaint();
+        }
+
+        private void repaintCells(IntList cells) {
+            for (int i = 0; i < cells.size(); i++) {
+                int index = cells.get(i);
+                repaintCell(grid.rowOf(index), grid.colOf(index));
+            }
         }
 
         public void setHint(int[] hint) {
+            if (this.hint != null) repaintCell(this.hint[0], this.hint[1]);
             this.hint = hint;
+            if (hint != null) repaintCell(hint[0], hint[1]);
+        }
+
+        // Перерисовываем только прямоугольник изменившейся клетки
+        private void repaintCell(int r, int c) {
+            repaint(layout.cellBounds(r, c));
         }
 
         @Override
         protected void paintComponent(Graphics g) {
+            long start = Metrics.start();
             super.paintComponent(g);
             Graphics2D g2d = (Graphics2D) g;
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-            // Рисуем фоновое изображение
-            if (backgroundImage != null) {
-                // Растягиваем изображение под размер панели
-                g2d.drawImage(backgroundImage, 0, 0, getWidth(), getHeight(), this);
+            // Фон уже растянут под размер панели в общем кеше
+            BufferedImage background = AssetCache.scaledBackground(getWidth(), getHeight(), getGraphicsConfiguration());
+            if (background != null) {
+                g2d.drawImage(background, 0, 0, null);
             } else {
                 g2d.setColor(Color.WHITE);
                 g2d.fillRect(0, 0, getWidth(), getHeight());
             }
 
-            for (int r = 0; r < grid.getRows(); r++) {
-                for (int c = 0; c < grid.getCols(); c++) {
-                    if (game.getBoard().isActive(r, c)) {
-                        drawHex(g2d, r, c);
-                    }
-                }
-            }
+            Rectangle clip = g2d.getClipBounds();
+            if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+            renderer.paintCells(g2d, clip, hint, hover);
 
             if (game.isGameOver() && game.isWon()) {
                 g2d.setColor(new Color(0, 0, 0, 128));
@@ -152,60 +428,18 @@ public class HexcellsUI extends JFrame {
                 g2d.setFont(new Font("Arial", Font.BOLD, 24));
                 g2d.drawString("Победа!", getWidth() / 2 - 50, getHeight() / 2);
             }
+            Metrics.stop(Metrics.Timer.PAINT, start);
         }
 
-        private void drawHex(Graphics2D g2d, int r, int c) {
-            double x = c * hexSize * 1.5 + hexSize + offsetX;
-            double y = r * hexSize * sqrt3 + (c % 2 == 0 ? hexSize : hexSize * (sqrt3 / 2 + 1)) + offsetY;
-            Path2D hex = new Path2D.Double();
-            for (int i = 0; i < 6; i++) {
-                double angle = Math.toRadians(60 * i);
-                double px = x + hexSize * Math.cos(angle);
-                double py = y + hexSize * Math.sin(angle);
-                if (i == 0) {
-                    hex.moveTo(px, py);
-                } else {
-                    hex.lineTo(px, py);
-                }
-            }
-            hex.closePath();
-
-            Cell cell = game.getBoard().getCell(r, c);
-            if (hint != null && hint[0] == r && hint[1] == c) {
-                g2d.setColor(hint[2] == 0 ? Color.GREEN : Color.ORANGE);
-                g2d.fill(hex);
-            } else if (cell.isFlagged()) {
-                g2d.setColor(Color.RED);
-                g2d.fill(hex);
-            } else if (cell.isRevealed()) {
-                g2d.setColor(cell.isBlue() ? Color.BLUE : Color.LIGHT_GRAY);
-                g2d.fill(hex);
-                if (!cell.isBlue()) {
-                    g2d.setColor(Color.BLACK);
-                    g2d.drawString(String.valueOf(cell.getClue()), (float) x - 5, (float) y + 5);
-                }
-            } else {
-                g2d.setColor(Color.GRAY);
-                g2d.fill(hex);
-            }
-            g2d.setColor(Color.BLACK);
-            g2d.draw(hex);
+        private int[] getHexAt(int px, int py) {
+            return renderer.hexAt(px, py);
         }
 
-        private int[] getHexAt(int px, int py) {
-            for (int r = 0; r < grid.getRows(); r++) {
-                for (int c = 0; c < grid.getCols(); c++) {
-                    if (!game.getBoard().isActive(r, c)) continue;
-                    double x = c * hexSize * 1.5 + hexSize + offsetX;
-                    double y = r * hexSize * sqrt3 + (c % 2 == 0 ? hexSize : hexSize * (sqrt3 / 2 + 1)) + offsetY;
-                    double dx = px - x;
-                    double dy = py - y;
-                    if (Math.sqrt(dx * dx + dy * dy) < hexSize) {
-                        return new int[]{r, c};
-                    }
-                }
-            }
-            return null;
+        private void setHover(int[] coords) {
+            if (hover == null ? coords == null : coords != null && hover[0] == coords[0] && hover[1] == coords[1]) return;
+            if (hover != null) repaintCell(hover[0], hover[1]);
+            hover = coords;
+            if (hover != null) repaintCell(hover[0], hover[1]);
         }
 
         private void showGameOverDialog() {
@@ -216,13 +450,27 @@ public class HexcellsUI extends JFrame {
             JPanel buttonPanel = new JPanel(new FlowLayout());
             JButton restartButton = new JButton("Начать заново");
             restartButton.addActionListener(e -> {
+                autosaver.close(game);
                 dispose();
-                new HexcellsUI(level);
+                if (level != null) {
+                    new HexcellsUI(level, noGuess);
+                } else {
+                    new MainMenu();
+                }
             });
             buttonPanel.add(restartButton);
 
+            // Проигрышный ход можно забрать назад
+            JButton undoButton = new JButton("Отменить ход");
+            undoButton.addActionListener(e -> {
+                SwingUtilities.getWindowAncestor(panel).dispose();
+                undo();
+            });
+            buttonPanel.add(undoButton);
+
             JButton menuButton = new JButton("В главное меню");
             menuButton.addActionListener(e -> {
+                autosaver.close(game);
                 dispose();
                 new MainMenu();
             });
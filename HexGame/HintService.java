@@ -0,0 +1,161 @@
+package HexGame;
+
+import javax.swing.SwingUtilities;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Подсказки вне потока интерфейса: после каждого хода следующая подсказка заранее считается в фоне,
+// так что нажатие кнопки обычно отвечает сразу. Новый ход отменяет устаревшее вычисление.
+// Фоновая позиция — HintTracker: события партии копируются в очередь (только изменённые клетки) и применяются
+// к нему по порядку, поэтому ход не копирует доску и не пересобирает Solver.
+// Все методы вызываются из потока интерфейса
+public class HintService implements GameListener {
+    // Пул растёт по мере надобности; потоки-демоны с пониженным приоритетом, чтобы не мешать отрисовке
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "hexcells-hint");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+
+    // Подсказка {строка, столбец, действие} и риск, как у Game.getHint; hint == null, если подсказок нет
+    public static final class Result {
+        static final Result NONE = new Result(null, 0);
+
+        public final int[] hint;
+        public final double risk;
+
+        Result(int[] hint, double risk) {
+            this.hint = hint;
+            this.risk = risk;
+        }
+    }
+
+    private final Game game;
+    // Доступен только фоновым задачам под своим замком; изменения партии ждут в updates
+    private final HintTracker tracker;
+    private final Queue<Consumer<HintTracker>> updates = new ConcurrentLinkedQueue<>();
+    private CompletableFuture<Result> pending;
+    private AtomicBoolean cancelled = new AtomicBoolean();
+    private Future<?> task;
+
+    public HintService(Game game) {
+        this.game = game;
+        this.tracker = new HintTracker(game.getBoard().copy(), game.isGameOver());
+        game.addListener(this);
+        positionChanged();
+    }
+
+    // События партии. Список клеток — общий буфер Game, поэтому копируется; доска копируется раз за партию
+    @Override
+    public void boardGenerated(Game game) {
+        Board position = game.getBoard().copy();
+        updates.add(tracker -> tracker.load(position));
+    }
+
+    @Override
+    public void cellsRevealed(Game game, IntList cells) {
+        IntList copy = copyOf(cells);
+        updates.add(tracker -> tracker.cellsRevealed(game, copy));
+    }
+
+    @Override
+    public void cellsConcealed(Game game, IntList cells) {
+        IntList copy = copyOf(cells);
+        updates.add(tracker -> tracker.cellsConcealed(game, copy));
+    }
+
+    @Override
+    public void flagToggled(Game game, int index, boolean flagged) {
+        updates.add(tracker -> tracker.flagToggled(game, index, flagged));
+    }
+
+    @Override
+    public void gameOver(Game game, boolean won) {
+        updates.add(tracker -> tracker.gameOver(game, won));
+    }
+
+    @Override
+    public void gameResumed(Game game) {
+        updates.add(tracker -> tracker.gameResumed(game));
+    }
+
+    private static IntList copyOf(IntList cells) {
+        IntList copy = new IntList(cells.size());
+        for (int i = 0; i < cells.size(); i++) copy.add(cells.get(i));
+        return copy;
+    }
+
+    // Вызывается после каждого хода, отмены и повтора: прежнее вычисление отменяется, новое начинается сразу
+    public void positionChanged() {
+        cancel();
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        pending = result;
+        if (game.isGameOver()) {
+            result.complete(Result.NONE);
+            return;
+        }
+        AtomicBoolean token = new AtomicBoolean();
+        cancelled = token;
+        task = EXECUTOR.submit(() -> {
+            try {
+                result.complete(compute(token::get));
+            } catch (CancellationException e) {
+                result.cancel(false);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    // Изменения применяет та задача, что первой получит замок; отменённая до запуска задача их не теряет,
+    // их подхватит следующая
+    private Result compute(BooleanSupplier cancelled) {
+        synchronized (tracker) {
+            for (Consumer<HintTracker> update; (update = updates.poll()) != null; ) update.accept(tracker);
+            if (cancelled.getAsBoolean()) throw new CancellationException();
+            return tracker.compute(cancelled);
+        }
+    }
+
+    public boolean isReady() {
+        return pending.isDone();
+    }
+
+    // Передаёт подсказку в onReady в потоке интерфейса; если до готовности сделан ход, ответ не приходит.
+    // Метрики подсказки — по запросам игрока: счётчик и время от нажатия до ответа, а не фоновые вычисления
+    public void request(Consumer<Result> onReady) {
+        Metrics.increment(Metrics.Counter.HINTS);
+        long start = Metrics.start();
+        CompletableFuture<Result> result = pending;
+        if (result.isDone() && !result.isCompletedExceptionally()) {
+            Metrics.stop(Metrics.Timer.HINT, start);
+            onReady.accept(result.join());
+            return;
+        }
+        result.whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (result != pending) return;
+            Metrics.stop(Metrics.Timer.HINT, start);
+            if (error != null) {
+                System.err.println("Не удалось вычислить подсказку: " + error);
+                onReady.accept(Result.NONE);
+            } else {
+                onReady.accept(value);
+            }
+        }));
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+        if (task != null) task.cancel(false);
+        if (pending != null) pending.cancel(false);
+    }
+}
\ No newline at end of file
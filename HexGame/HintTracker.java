@@ -0,0 +1,75 @@
+package HexGame;
+
+import java.util.function.BooleanSupplier;
+
+// Позиция для подсказок, которую ведут события партии, а не копия доски на каждый ход: открытия и флаги
+// применяются к своей копии доски и доходят до Solver инкрементально, отмена хода пересобирает его вывод, как в Game.
+// Доска копируется только при создании и после генерации расстановки первым ходом.
+// Не потокобезопасен: события и compute вызываются из одного потока
+final class HintTracker implements GameListener {
+    private Board position;
+    private Solver solver;
+    private ProbabilitySolver probabilitySolver;
+    private boolean solverStale;
+    private boolean gameOver;
+
+    HintTracker(Board position, boolean gameOver) {
+        load(position);
+        this.gameOver = gameOver;
+    }
+
+    // Новая копия доски, например после генерации расстановки
+    void load(Board position) {
+        this.position = position;
+        this.solver = new Solver(position);
+        this.probabilitySolver = new ProbabilitySolver(position, solver);
+        this.solverStale = false;
+    }
+
+    // Подсказка как у Game.getHint для той же позиции
+    HintService.Result compute(BooleanSupplier cancelled) {
+        if (gameOver || !position.isInitialized()) return HintService.Result.NONE;
+        if (solverStale) {
+            solver.reset();
+            solverStale = false;
+        }
+        return Game.findHint(position, solver, probabilitySolver, cancelled);
+    }
+
+    // Слушатель, когда события приходят в том же потоке, что и compute (Replayer)
+    @Override
+    public void boardGenerated(Game game) {
+        load(game.getBoard().copy());
+    }
+
+    @Override
+    public void cellsRevealed(Game game, IntList cells) {
+        for (int i = 0; i < cells.size(); i++) {
+            int index = cells.get(i);
+            position.reveal(index);
+            if (!solverStale) solver.cellRevealed(index);
+        }
+    }
+
+    @Override
+    public void cellsConcealed(Game game, IntList cells) {
+        for (int i = 0; i < cells.size(); i++) position.conceal(cells.get(i));
+        solverStale = true;
+    }
+
+    @Override
+    public void flagToggled(Game game, int index, boolean flagged) {
+        if (position.isFlagged(index) != flagged) position.toggleFlag(index);
+        if (!solverStale) solver.flagChanged(index);
+    }
+
+    @Override
+    public void gameOver(Game game, boolean won) {
+        gameOver = true;
+    }
+
+    @Override
+    public void gameResumed(Game game) {
+        gameOver = false;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,353 @@
+package HexGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Неограниченная доска из чанков CHUNK_SIZE x CHUNK_SIZE, создаваемых при первом обращении.
+// Синие клетки чанка — чистая функция от (зерна мира, координат чанка), поэтому подсказки у границ
+// согласованы без загрузки соседних чанков. В памяти не больше maxResidentChunks чанков (LRU);
+// чанки с ходами игрока при вытеснении пишутся в файл подкачки и читаются обратно при следующем обращении.
+// Не потокобезопасна, как и Board
+public class InfiniteBoard implements Closeable {
+    public static final int CHUNK_SIZE = 32; // Чётный: чётность столбца в чанке совпадает с глобальной
+    public static final long DEFAULT_MEMORY_CAP = 32L << 20;
+    private static final int SHIFT = 5;
+    private static final int MASK = CHUNK_SIZE - 1;
+    private static final int CELLS = CHUNK_SIZE * CHUNK_SIZE;
+    private static final int WORDS = CELLS / 64;
+    // Оценка в куче с заголовками объектов и записью в LinkedHashMap: чанк и синий слой в кэше слоёв
+    private static final int CHUNK_BYTES = 2 * (WORDS * 8 + 16) + CELLS + 16 + 96;
+    private static final int LAYER_BYTES = WORDS * 8 + 16 + 96;
+    private static final int LAYERS_PER_CHUNK = 2;
+    private static final int RECORD_BYTES = 2 * WORDS * 8; // В файл идут только открытые клетки и флаги
+    // Смещения соседей в локальном индексе чанка для чётного и нечётного столбца
+    private static final int[] EVEN_OFFSETS = localOffsets(0);
+    private static final int[] ODD_OFFSETS = localOffsets(1);
+
+    private final long worldSeed;
+    private final double blueProbability;
+    private final int maxResidentChunks;
+    private final LinkedHashMap<Long, Chunk> resident;
+    private final LongLongMap spilled = new LongLongMap(); // Чанк -> смещение записи в файле подкачки
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private final LinkedHashMap<Long, long[]> blueLayers; // Синие слои недавних чанков и их соседей, только чтение
+    private final long[][] borderLayers = new long[9][];  // Слои вокруг чанка при расчёте подсказок
+    private Path spillPath;
+    private FileChannel spill;
+    private long spillEnd;
+    private Chunk lastChunk; // Соседние обращения обычно попадают в тот же чанк
+    private long loads;
+    private long evictions;
+
+    public InfiniteBoard(long worldSeed, double blueProbability) {
+        this(worldSeed, blueProbability, DEFAULT_MEMORY_CAP);
+    }
+
+    public InfiniteBoard(long worldSeed, double blueProbability, long memoryCapBytes) {
+        this.worldSeed = worldSeed;
+        this.blueProbability = blueProbability;
+        long perChunk = CHUNK_BYTES + LAYERS_PER_CHUNK * LAYER_BYTES;
+        this.maxResidentChunks = (int) Math.max(16, Math.min(Integer.MAX_VALUE / LAYERS_PER_CHUNK, memoryCapBytes / perChunk));
+        int maxLayers = maxResidentChunks * LAYERS_PER_CHUNK;
+        this.resident = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                if (size() <= maxResidentChunks) return false;
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+        // Соседние чанки при загрузке нужны только ради подсказок у границы, поэтому их слои кэшируются отдельно
+        this.blueLayers = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+                return size() > maxLayers;
+            }
+        };
+    }
+
+    public boolean isBlue(int r, int c) { return Bits.get(chunk(r, c).blue, local(r, c)); }
+    public boolean isRevealed(int r, int c) { return Bits.get(chunk(r, c).revealed, local(r, c)); }
+    public boolean isFlagged(int r, int c) { return Bits.get(chunk(r, c).flagged, local(r, c)); }
+    public int getClue(int r, int c) { return chunk(r, c).clues[local(r, c)]; }
+
+    public void reveal(int r, int c) {
+        Chunk chunk = chunk(r, c);
+        Bits.set(chunk.revealed, local(r, c));
+        chunk.dirty = true;
+    }
+
+    public void toggleFlag(int r, int c) {
+        Chunk chunk = chunk(r, c);
+        Bits.flip(chunk.flagged, local(r, c));
+        chunk.dirty = true;
+    }
+
+    public long getWorldSeed() { return worldSeed; }
+    public double getBlueProbability() { return blueProbability; }
+    public int getMaxResidentChunks() { return maxResidentChunks; }
+    public int getResidentChunkCount() { return resident.size(); }
+    public int getSpilledChunkCount() { return spilled.size(); }
+    public long getChunkLoads() { return loads; }
+    public long getChunkEvictions() { return evictions; }
+
+    // Ключ чанка: строка в старших 32 битах, столбец в младших
+    static long chunkKey(int chunkRow, int chunkCol) {
+        return (long) chunkRow << 32 | (chunkCol & 0xFFFFFFFFL);
+    }
+
+    // Ключ для HashMap: Long.hashCode от chunkKey сводится к row ^ col и собирает диагонали в одну корзину,
+    // умножение на нечётную константу обратимо и перемешивает биты
+    private static long mapKey(int chunkRow, int chunkCol) {
+        return chunkKey(chunkRow, chunkCol) * 0x9E3779B97F4A7C15L;
+    }
+
+    private static int local(int r, int c) {
+        return (r & MASK) << SHIFT | (c & MASK);
+    }
+
+    private Chunk chunk(int r, int c) {
+        int chunkRow = r >> SHIFT;
+        int chunkCol = c >> SHIFT;
+        Chunk last = lastChunk;
+        if (last != null && last.row == chunkRow && last.col == chunkCol) return last;
+        long key = mapKey(chunkRow, chunkCol);
+        Chunk chunk = resident.get(key);
+        if (chunk == null) {
+            chunk = load(chunkRow, chunkCol);
+            resident.put(key, chunk);
+        }
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    private Chunk load(int chunkRow, int chunkCol) {
+        Chunk chunk = new Chunk(chunkRow, chunkCol, blueLayer(chunkRow, chunkCol));
+        computeClues(chunk);
+        long offset = spilled.get(chunkKey(chunkRow, chunkCol));
+        if (offset >= 0) readRecord(offset, chunk);
+        loads++;
+        return chunk;
+    }
+
+    private long[] blueLayer(int chunkRow, int chunkCol) {
+        long key = mapKey(chunkRow, chunkCol);
+        long[] blue = blueLayers.get(key);
+        if (blue == null) {
+            blue = new long[WORDS];
+            generateBlue(chunkRow, chunkCol, blue);
+            blueLayers.put(key, blue);
+        }
+        return blue;
+    }
+
+    // Синие клетки чанка из собственного потока случайных чисел, по 16 бит на клетку (четыре клетки на nextLong);
+    // начало координат и его соседи всегда безопасны
+    private void generateBlue(int chunkRow, int chunkCol, long[] blue) {
+        SplittableRandom random = new SplittableRandom(chunkSeed(worldSeed, chunkRow, chunkCol));
+        long threshold = Math.round(blueProbability * 65536);
+        for (int i = 0; i < CELLS; i += 4) {
+            long bits = random.nextLong();
+            for (int j = 0; j < 4; j++) {
+                if ((bits >>> (j << 4) & 0xFFFF) < threshold) Bits.set(blue, i + j);
+            }
+        }
+        clearIfInChunk(blue, chunkRow, chunkCol, 0, 0);
+        for (int k = 0; k < 6; k++) {
+            clearIfInChunk(blue, chunkRow, chunkCol, HexGrid.neighborRow(0, 0, k), HexGrid.neighborCol(0, 0, k));
+        }
+    }
+
+    private static void clearIfInChunk(long[] blue, int chunkRow, int chunkCol, int r, int c) {
+        if (r >> SHIFT == chunkRow && c >> SHIFT == chunkCol) Bits.clear(blue, local(r, c));
+    }
+
+    // SplitMix64 от зерна мира и координат чанка
+    static long chunkSeed(long worldSeed, int chunkRow, int chunkCol) {
+        long z = worldSeed + chunkKey(chunkRow, chunkCol) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int[] localOffsets(int parity) {
+        int[] offsets = new int[6];
+        for (int k = 0; k < 6; k++) {
+            offsets[k] = HexGrid.neighborRow(0, parity, k) * CHUNK_SIZE + HexGrid.neighborCol(0, parity, k) - parity;
+        }
+        return offsets;
+    }
+
+    // Подсказки чанка. Внутренние клетки считаются по локальным смещениям, клетки у границы смотрят
+    // в синие слои соседних чанков из кэша или генерируют их заново
+    private void computeClues(Chunk chunk) {
+        long[] own = chunk.blue;
+        for (int lr = 1; lr < CHUNK_SIZE - 1; lr++) {
+            for (int lc = 1; lc < CHUNK_SIZE - 1; lc++) {
+                int i = lr << SHIFT | lc;
+                int[] offsets = (lc & 1) == 0 ? EVEN_OFFSETS : ODD_OFFSETS;
+                int count = 0;
+                for (int k = 0; k < 6; k++) {
+                    if (Bits.get(own, i + offsets[k])) count++;
+                }
+                chunk.clues[i] = (byte) count;
+            }
+        }
+
+        Arrays.fill(borderLayers, null);
+        borderLayers[4] = own;
+        int baseRow = chunk.row << SHIFT;
+        int baseCol = chunk.col << SHIFT;
+        for (int lr = 0; lr < CHUNK_SIZE; lr++) {
+            boolean edgeRow = lr == 0 || lr == CHUNK_SIZE - 1;
+            for (int lc = 0; lc < CHUNK_SIZE; lc += edgeRow ? 1 : CHUNK_SIZE - 1) {
+                int r = baseRow + lr;
+                int c = baseCol + lc;
+                int count = 0;
+                for (int k = 0; k < 6; k++) {
+                    int nr = HexGrid.neighborRow(r, c, k);
+                    int nc = HexGrid.neighborCol(r, c, k);
+                    int layer = ((nr >> SHIFT) - chunk.row + 1) * 3 + (nc >> SHIFT) - chunk.col + 1;
+                    long[] blue = borderLayers[layer];
+                    if (blue == null) {
+                        blue = blueLayer(nr >> SHIFT, nc >> SHIFT);
+                        borderLayers[layer] = blue;
+                    }
+                    if (Bits.get(blue, local(nr, nc))) count++;
+                }
+                chunk.clues[lr << SHIFT | lc] = (byte) count;
+            }
+        }
+    }
+
+    // Нетронутый чанк просто забывается: он восстановим из зерна. Изменённый пишется на своё место в файле
+    private void evict(Chunk chunk) {
+        if (lastChunk == chunk) lastChunk = null;
+        evictions++;
+        if (chunk.dirty) writeRecord(chunk);
+    }
+
+    private void writeRecord(Chunk chunk) {
+        long key = chunkKey(chunk.row, chunk.col);
+        long offset = spilled.get(key);
+        try {
+            if (spill == null) openSpill();
+            if (offset < 0) {
+                offset = spillEnd;
+                spillEnd += RECORD_BYTES;
+                spilled.put(key, offset);
+            }
+            record.clear();
+            for (long word : chunk.revealed) record.putLong(word);
+            for (long word : chunk.flagged) record.putLong(word);
+            record.flip();
+            while (record.hasRemaining()) spill.write(record, offset + record.position());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось выгрузить чанк в файл подкачки", e);
+        }
+    }
+
+    private void readRecord(long offset, Chunk chunk) {
+        try {
+            record.clear();
+            while (record.hasRemaining()) {
+                if (spill.read(record, offset + record.position()) < 0) throw new IOException("Файл подкачки обрезан");
+            }
+            record.flip();
+            for (int w = 0; w < WORDS; w++) chunk.revealed[w] = record.getLong();
+            for (int w = 0; w < WORDS; w++) chunk.flagged[w] = record.getLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать чанк из файла подкачки", e);
+        }
+    }
+
+    private void openSpill() throws IOException {
+        spillPath = Files.createTempFile("hexcells-chunks", ".bin");
+        spillPath.toFile().deleteOnExit();
+        spill = FileChannel.open(spillPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // Закрывает и удаляет файл подкачки; ходы в вытесненных чанках после этого теряются
+    @Override
+    public void close() throws IOException {
+        if (spill == null) return;
+        spill.close();
+        Files.deleteIfExists(spillPath);
+        spill = null;
+    }
+
+    private static final class Chunk {
+        final int row;
+        final int col;
+        final long[] blue; // Общий с кэшем слоёв, не меняется
+        final long[] revealed = new long[WORDS];
+        final long[] flagged = new long[WORDS];
+        final byte[] clues = new byte[CELLS];
+        boolean dirty; // Есть ходы игрока, не записанные в файл подкачки
+
+        Chunk(int row, int col, long[] blue) {
+            this.row = row;
+            this.col = col;
+            this.blue = blue;
+        }
+    }
+
+    // Открытая адресация long -> long без упаковки; -1 означает отсутствие значения
+    private static final class LongLongMap {
+        private long[] keys = new long[64];
+        private long[] values = emptyValues(64);
+        private int size;
+
+        long get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); values[i] >= 0; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            return -1;
+        }
+
+        void put(long key, long value) {
+            if (2 * (size + 1) > keys.length) grow();
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (values[i] >= 0 && keys[i] != key) i = (i + 1) & mask;
+            if (values[i] < 0) size++;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int size() { return size; }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = emptyValues(oldKeys.length * 2);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] >= 0) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        private static long[] emptyValues(int length) {
+            long[] values = new long[length];
+            Arrays.fill(values, -1);
+            return values;
+        }
+    }
+}
\ No newline at end of file
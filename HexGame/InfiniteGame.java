@@ -0,0 +1,78 @@
+package HexGame;
+
+// Правила бесконечного режима: победы нет, счёт — число открытых безопасных клеток.
+// Игра начинается с открытого начала координат и его соседей, которые всегда безопасны
+public class InfiniteGame {
+    private static final int FLOOD_LIMIT = 1 << 16; // При низкой плотности нулевая область может не кончаться
+
+    private final InfiniteBoard board;
+    private final IntQueue floodRows = new IntQueue();
+    private final IntQueue floodCols = new IntQueue();
+    private boolean gameOver;
+    private boolean autoReveal;
+    private long revealedCount;
+
+    public InfiniteGame(InfiniteBoard board) {
+        this.board = board;
+        revealSafe(0, 0);
+        for (int k = 0; k < 6; k++) {
+            revealSafe(HexGrid.neighborRow(0, 0, k), HexGrid.neighborCol(0, 0, k));
+        }
+    }
+
+    // Число открытых клеток; в режиме автооткрытия — вместе с областью нулевых подсказок, не больше FLOOD_LIMIT
+    public int openCell(int r, int c) {
+        if (gameOver || board.isFlagged(r, c) || board.isRevealed(r, c)) return 0;
+        if (board.isBlue(r, c)) {
+            board.reveal(r, c);
+            gameOver = true;
+            return 1;
+        }
+        revealSafe(r, c);
+        int opened = 1;
+        if (autoReveal && board.getClue(r, c) == 0) {
+            opened += floodReveal(r, c);
+        }
+        return opened;
+    }
+
+    public void toggleFlag(int r, int c) {
+        if (gameOver || board.isRevealed(r, c)) return;
+        board.toggleFlag(r, c);
+    }
+
+    private int floodReveal(int startRow, int startCol) {
+        floodRows.clear();
+        floodCols.clear();
+        floodRows.add(startRow);
+        floodCols.add(startCol);
+        int opened = 0;
+        while (!floodRows.isEmpty() && opened < FLOOD_LIMIT) {
+            int r = floodRows.poll();
+            int c = floodCols.poll();
+            for (int k = 0; k < 6; k++) {
+                int nr = HexGrid.neighborRow(r, c, k);
+                int nc = HexGrid.neighborCol(r, c, k);
+                if (board.isRevealed(nr, nc) || board.isFlagged(nr, nc)) continue;
+                revealSafe(nr, nc);
+                opened++;
+                if (board.getClue(nr, nc) == 0) {
+                    floodRows.add(nr);
+                    floodCols.add(nc);
+                }
+            }
+        }
+        return opened;
+    }
+
+    private void revealSafe(int r, int c) {
+        board.reveal(r, c);
+        revealedCount++;
+    }
+
+    public void setAutoReveal(boolean autoReveal) { this.autoReveal = autoReveal; }
+    public boolean isAutoReveal() { return autoReveal; }
+    public boolean isGameOver() { return gameOver; }
+    public long getRevealedCount() { return revealedCount; }
+    public InfiniteBoard getBoard() { return board; }
+}
\ No newline at end of file
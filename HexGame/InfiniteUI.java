@@ -0,0 +1,292 @@
+package HexGame;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+// Окно бесконечного режима. Доска без границ, поэтому камера не вписывает её в окно, а стоит на начале координат;
+// рисуются только клетки в кадре, чанки под ними InfiniteBoard создаёт при первом обращении
+public class InfiniteUI extends JFrame {
+    // Дальше кадр задевает слишком много чанков: каждый новый чанк — генерация и подсчёт подсказок
+    private static final double MIN_ZOOM = 0.25;
+    private static final Color HOVER_COLOR = new Color(165, 165, 165);
+
+    private final InfiniteGame game;
+    private final InfiniteBoard board;
+    private final HexLayout layout = new HexLayout(30);
+    private final JLabel scoreLabel = new JLabel();
+    private final InfinitePanel panel = new InfinitePanel();
+    private boolean centered; // Камера уже поставлена на начало координат
+    private int panelWidth;   // Размер панели при прошлом изменении окна
+    private int panelHeight;
+
+    public InfiniteUI() {
+        this(new InfiniteGame(new InfiniteBoard(System.nanoTime(), Board.Level.MEDIUM.blueProbability)));
+    }
+
+    public InfiniteUI(InfiniteGame game) {
+        this.game = game;
+        this.board = game.getBoard();
+        setTitle("Hexcells Infinite - Бесконечный режим");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setResizable(true);
+        setMinimumSize(new Dimension(400, 400));
+        setPreferredSize(new Dimension(800, 600));
+
+        // Панель управления
+        JPanel controlPanel = new JPanel();
+        controlPanel.setLayout(new FlowLayout());
+
+        // Автоматическое открытие областей с нулевой подсказкой
+        JCheckBox autoRevealBox = new JCheckBox("Автооткрытие");
+        autoRevealBox.setOpaque(false);
+        autoRevealBox.setSelected(game.isAutoReveal());
+        autoRevealBox.addActionListener(e -> game.setAutoReveal(autoRevealBox.isSelected()));
+        controlPanel.add(autoRevealBox);
+
+        // Вернуть камеру к началу координат
+        JButton centerButton = new JButton("К началу");
+        centerButton.addActionListener(e -> {
+            centerOnOrigin();
+            panel.repaint();
+        });
+        controlPanel.add(centerButton);
+
+        JButton menuButton = new JButton("Меню");
+        menuButton.addActionListener(e -> {
+            dispose();
+            new MainMenu();
+        });
+        controlPanel.add(menuButton);
+
+        controlPanel.add(scoreLabel);
+        updateScore();
+
+        setLayout(new BorderLayout());
+        add(controlPanel, BorderLayout.NORTH);
+        add(panel, BorderLayout.CENTER);
+
+        pack();
+        setLocationRelativeTo(null);
+        setVisible(true);
+
+        // Файл подкачки чанков удаляется и при закрытии окна
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeBoard();
+            }
+        });
+
+        // Центр вида остаётся на месте при изменении размера окна
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                if (!centered) {
+                    centerOnOrigin();
+                    centered = true;
+                } else {
+                    layout.pan((panel.getWidth() - panelWidth) / 2.0, (panel.getHeight() - panelHeight) / 2.0);
+                }
+                panelWidth = panel.getWidth();
+                panelHeight = panel.getHeight();
+                panel.repaint();
+            }
+        });
+    }
+
+    @Override
+    public void dispose() {
+        closeBoard();
+        super.dispose();
+    }
+
+    private void closeBoard() {
+        try {
+            board.close();
+        } catch (IOException e) {
+            System.err.println("Не удалось удалить файл подкачки: " + e.getMessage());
+        }
+    }
+
+    // Начало координат в центре панели
+    private void centerOnOrigin() {
+        layout.setOffsets(0, 0);
+        layout.pan(panel.getWidth() / 2.0 - layout.centerX(0), panel.getHeight() / 2.0 - layout.centerY(0, 0));
+    }
+
+    private void updateScore() {
+        scoreLabel.setText("Открыто: " + game.getRevealedCount());
+    }
+
+    private void open(int row, int col) {
+        if (game.openCell(row, col) == 0) return;
+        updateScore();
+        // Автооткрытие может затронуть клетки за пределами кадра и несколько чанков, поэтому перерисовка целиком
+        panel.repaint();
+        if (game.isGameOver()) panel.showGameOverDialog();
+    }
+
+    private class InfinitePanel extends JPanel {
+        private int[] hover; // Клетка под курсором
+        private Point dragFrom; // Сдвиг камеры: средняя кнопка или левая с Shift
+
+        InfinitePanel() {
+            setBackground(Color.WHITE);
+            AssetCache.repaintWhenLoaded(this);
+            MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    if (SwingUtilities.isMiddleMouseButton(e) || (SwingUtilities.isLeftMouseButton(e) && e.isShiftDown())) {
+                        dragFrom = e.getPoint();
+                        return;
+                    }
+                    int[] coords = layout.hexAt(e.getX(), e.getY());
+                    if (e.getButton() == MouseEvent.BUTTON1) {
+                        open(coords[0], coords[1]);
+                    } else if (e.getButton() == MouseEvent.BUTTON3 && !game.isGameOver()) {
+                        game.toggleFlag(coords[0], coords[1]);
+                        repaintCell(coords[0], coords[1]);
+                    }
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    dragFrom = null;
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    if (dragFrom == null) return;
+                    layout.pan(e.getX() - dragFrom.x, e.getY() - dragFrom.y);
+                    dragFrom = e.getPoint();
+                    repaint();
+                }
+
+                @Override
+                public void mouseExited(MouseEvent e) {
+                    setHover(null);
+                }
+
+                @Override
+                public void mouseMoved(MouseEvent e) {
+                    setHover(layout.hexAt(e.getX(), e.getY()));
+                }
+
+                // Колесо масштабирует вокруг курсора
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    double zoom = layout.getZoom() * Math.pow(1.1, -e.getPreciseWheelRotation());
+                    layout.setZoom(Math.max(MIN_ZOOM, zoom), e.getX(), e.getY());
+                    repaint();
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
+        }
+
+        private void repaintCell(int r, int c) {
+            repaint(layout.cellBounds(r, c));
+        }
+
+        private void setHover(int[] coords) {
+            if (hover == null ? coords == null : coords != null && hover[0] == coords[0] && hover[1] == coords[1]) return;
+            if (hover != null) repaintCell(hover[0], hover[1]);
+            hover = coords;
+            if (hover != null) repaintCell(hover[0], hover[1]);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Graphics2D g2d = (Graphics2D) g;
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+            BufferedImage background = AssetCache.scaledBackground(getWidth(), getHeight(), getGraphicsConfiguration());
+            if (background != null) {
+                g2d.drawImage(background, 0, 0, null);
+            } else {
+                g2d.setColor(Color.WHITE);
+                g2d.fillRect(0, 0, getWidth(), getHeight());
+            }
+
+            // Диапазон клеток берётся из камеры без ограничения размерами доски
+            Rectangle clip = g2d.getClipBounds();
+            if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+            int firstRow = layout.firstRow(clip.getMinY());
+            int lastRow = layout.lastRow(clip.getMaxY());
+            int firstCol = layout.firstCol(clip.getMinX());
+            int lastCol = layout.lastCol(clip.getMaxX());
+            for (int r = firstRow; r <= lastRow; r++) {
+                for (int c = firstCol; c <= lastCol; c++) {
+                    drawHex(g2d, r, c);
+                }
+            }
+        }
+
+        private void drawHex(Graphics2D g2d, int r, int c) {
+            Shape hex = layout.getOutline();
+            AffineTransform transform = g2d.getTransform();
+            g2d.translate(layout.centerX(c), layout.centerY(r, c));
+            boolean detailed = layout.isDetailed();
+            if (board.isFlagged(r, c)) {
+                g2d.setColor(Color.RED);
+                g2d.fill(hex);
+            } else if (board.isRevealed(r, c)) {
+                boolean blue = board.isBlue(r, c);
+                g2d.setColor(blue ? Color.BLUE : Color.LIGHT_GRAY);
+                g2d.fill(hex);
+                if (!blue && detailed) {
+                    g2d.setColor(Color.BLACK);
+                    g2d.drawString(String.valueOf(board.getClue(r, c)), -5f, 5f);
+                }
+            } else {
+                boolean hovered = hover != null && hover[0] == r && hover[1] == c;
+                g2d.setColor(hovered ? HOVER_COLOR : Color.GRAY);
+                g2d.fill(hex);
+            }
+            if (detailed) {
+                g2d.setColor(Color.BLACK);
+                g2d.draw(hex);
+            }
+            g2d.setTransform(transform);
+        }
+
+        private void showGameOverDialog() {
+            JPanel dialog = new JPanel(new GridLayout(2, 1, 10, 10));
+            dialog.add(new JLabel("Поражение! Открыто клеток: " + game.getRevealedCount()));
+
+            JPanel buttonPanel = new JPanel(new FlowLayout());
+            JButton restartButton = new JButton("Начать заново");
+            restartButton.addActionListener(e -> {
+                dispose();
+                new InfiniteUI();
+            });
+            buttonPanel.add(restartButton);
+
+            JButton menuButton = new JButton("В главное меню");
+            menuButton.addActionListener(e -> {
+                dispose();
+                new MainMenu();
+            });
+            buttonPanel.add(menuButton);
+
+            dialog.add(buttonPanel);
+
+            JOptionPane.showOptionDialog(
+                    InfiniteUI.this,
+                    dialog,
+                    "Игра окончена",
+                    JOptionPane.DEFAULT_OPTION,
+                    JOptionPane.PLAIN_MESSAGE,
+                    null,
+                    new Object[]{},
+                    null
+            );
+        }
+    }
+}
\ No newline at end of file
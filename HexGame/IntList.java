@@ -0,0 +1,46 @@
+package HexGame;
+
+import java.util.Arrays;
+
+// Растущий список int без упаковки в Integer
+public class IntList {
+    private int[] items;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int capacity) {
+        this.items = new int[Math.max(capacity, 4)];
+    }
+
+    public void add(int value) {
+        if (size == items.length) items = Arrays.copyOf(items, items.length * 2);
+        items[size++] = value;
+    }
+
+    public int get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Индекс " + i + ", размер " + size);
+        return items[i];
+    }
+
+    public void set(int i, int value) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Индекс " + i + ", размер " + size);
+        items[i] = value;
+    }
+
+    // Отбрасываем хвост списка начиная с newSize
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) throw new IndexOutOfBoundsException("Размер " + newSize + ", было " + size);
+        size = newSize;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public void clear() { size = 0; }
+
+    public int[] toArray() {
+        return Arrays.copyOf(items, size);
+    }
+}
\ No newline at end of file
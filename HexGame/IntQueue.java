@@ -0,0 +1,63 @@
+package HexGame;
+
+import java.util.Arrays;
+
+// Кольцевая очередь int без упаковки в Integer
+public class IntQueue {
+    private int[] items;
+    private int head;
+    private int size;
+
+    public IntQueue() {
+        this(16);
+    }
+
+    public IntQueue(int capacity) {
+        this.items = new int[Math.max(capacity, 4)];
+    }
+
+    public void add(int value) {
+        if (size == items.length) grow();
+        items[(head + size) % items.length] = value;
+        size++;
+    }
+
+    public int poll() {
+        if (size == 0) throw new IllegalStateException("Очередь пуста");
+        int value = items[head];
+        head = (head + 1) % items.length;
+        size--;
+        return value;
+    }
+
+    public int peek() {
+        if (size == 0) throw new IllegalStateException("Очередь пуста");
+        return items[head];
+    }
+
+    // i-й элемент от головы очереди
+    public int get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Индекс " + i + ", размер " + size);
+        return items[(head + i) % items.length];
+    }
+
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) result[i] = items[(head + i) % items.length];
+        return result;
+    }
+
+    private void grow() {
+        int[] grown = Arrays.copyOf(toArray(), items.length * 2);
+        items = grown;
+        head = 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package HexGame;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Потокобезопасная гистограмма задержек в наносекундах: логарифмические корзины по 8 на каждую степень двойки,
+// погрешность перцентилей не больше 12.5%. Запись — несколько атомарных сложений без выделения памяти
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucket(nanos));
+        total.increment();
+        sum.add(nanos);
+        if (nanos > max.get()) max.accumulateAndGet(nanos, Math::max);
+    }
+
+    // Значения меньше 8 лежат в своих корзинах, дальше на каждую степень двойки по 8 корзин
+    static int bucket(long nanos) {
+        if (nanos < SUB_COUNT) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    // Верхняя граница корзины включительно
+    static long bucketMax(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+        int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+        long lower = (long) (SUB_COUNT + bucket % SUB_COUNT) << (exponent - SUB_BITS);
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    public long count() { return total.sum(); }
+
+    // Значение, не меньше которого доля q записей; оценка сверху по границе корзины
+    public long percentile(double q) {
+        long n = total.sum();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * n));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) return Math.min(bucketMax(b), max.get());
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b++) counts.set(b, 0);
+        total.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    public Snapshot snapshot() {
+        long n = total.sum();
+        return new Snapshot(n, n == 0 ? 0 : sum.sum() / 1e3 / n,
+                percentile(0.5) / 1e3, percentile(0.99) / 1e3, max.get() / 1e3);
+    }
+
+    // Сводка в микросекундах; в JMX отображается как CompositeData
+    public static final class Snapshot {
+        private final long count;
+        private final double meanMicros;
+        private final double p50Micros;
+        private final double p99Micros;
+        private final double maxMicros;
+
+        @ConstructorProperties({"count", "meanMicros", "p50Micros", "p99Micros", "maxMicros"})
+        public Snapshot(long count, double meanMicros, double p50Micros, double p99Micros, double maxMicros) {
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() { return count; }
+        public double getMeanMicros() { return meanMicros; }
+        public double getP50Micros() { return p50Micros; }
+        public double getP99Micros() { return p99Micros; }
+        public double getMaxMicros() { return maxMicros; }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d mean=%.1fмкс p50=%.1fмкс p99=%.1fмкс max=%.1fмкс",
+                    count, meanMicros, p50Micros, p99Micros, maxMicros);
+        }
+    }
+}
\ No newline at end of file
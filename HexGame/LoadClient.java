@@ -0,0 +1,160 @@
+package HexGame;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+// Генератор нагрузки для GameServer: каждое соединение ведёт по очереди несколько партий, играя по подсказкам сервера.
+// Время замеряется на ходах (OPEN и FLAG) от отправки до ответа.
+// Запуск: LoadClient [соединений] [партий на соединение одновременно] [партий на соединение всего] [уровень] [хост] [порт],
+// уровень — EASY|MEDIUM|HARD или строк,столбцов,плотность
+public class LoadClient {
+    private final String host;
+    private final int port;
+    private final String newCommand;
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public LoadClient(String host, int port, String newCommand) {
+        this.host = host;
+        this.port = port;
+        this.newCommand = newCommand;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int concurrent = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int total = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        String level = args.length > 3 ? args[3] : "HARD";
+        String host = args.length > 4 ? args[4] : "127.0.0.1";
+        int port = args.length > 5 ? Integer.parseInt(args[5]) : GameServer.DEFAULT_PORT;
+        LoadClient client = new LoadClient(host, port, "NEW " + level.replace(',', ' '));
+        long elapsed = client.run(connections, concurrent, total);
+        System.out.println(client.report(elapsed, connections * concurrent));
+    }
+
+    // Возвращает время прогона в наносекундах
+    public long run(int connections, int concurrent, int gamesPerConnection) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        long start = System.nanoTime();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            tasks.add(executor.submit(() -> {
+                drive(concurrent, gamesPerConnection);
+                return null;
+            }));
+        }
+        for (Future<?> task : tasks) task.get();
+        executor.shutdown();
+        return System.nanoTime() - start;
+    }
+
+    private static final class Play {
+        long id;
+        int rows;
+        int cols;
+        boolean started;
+    }
+
+    // Партии соединения продвигаются по одному ходу по кругу, так что на сервере живут все concurrent одновременно
+    private void drive(int concurrent, int gamesTotal) throws IOException {
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            Play[] plays = new Play[Math.min(concurrent, gamesTotal)];
+            int begun = 0;
+            for (int i = 0; i < plays.length; i++, begun++) plays[i] = begin(in, out);
+            int active = plays.length;
+            while (active > 0) {
+                for (int i = 0; i < plays.length; i++) {
+                    Play play = plays[i];
+                    if (play == null) continue;
+                    if (step(play, in, out)) continue;
+                    call(in, out, "CLOSE " + play.id);
+                    if (begun < gamesTotal) {
+                        plays[i] = begin(in, out);
+                        begun++;
+                    } else {
+                        plays[i] = null;
+                        active--;
+                    }
+                }
+            }
+            out.write("QUIT\n");
+            out.flush();
+        }
+    }
+
+    private Play begin(BufferedReader in, Writer out) throws IOException {
+        String[] reply = call(in, out, newCommand).split(" ");
+        Play play = new Play();
+        play.id = Long.parseLong(reply[1]);
+        play.rows = Integer.parseInt(reply[2]);
+        play.cols = Integer.parseInt(reply[3]);
+        return play;
+    }
+
+    // Один ход партии; false, если партия закончена
+    private boolean step(Play play, BufferedReader in, Writer out) throws IOException {
+        String command;
+        if (!play.started) {
+            play.started = true;
+            command = "OPEN " + play.id + " " + (play.rows - 1) / 2 + " " + (play.cols - 1) / 2;
+        } else {
+            String[] hint = call(in, out, "HINT " + play.id).split(" ");
+            if (hint[1].equals("NONE")) return false;
+            command = (hint[3].equals("FLAG") ? "FLAG " : "OPEN ") + play.id + " " + hint[1] + " " + hint[2];
+        }
+        long start = System.nanoTime();
+        String reply = call(in, out, command);
+        moveLatency.record(System.nanoTime() - start);
+        moves.increment();
+        String state = reply.split(" ", 3)[1];
+        if (state.equals("PLAYING")) return true;
+        games.increment();
+        if (state.equals("WON")) wins.increment();
+        return false;
+    }
+
+    private String call(BufferedReader in, Writer out, String command) throws IOException {
+        out.write(command);
+        out.write('\n');
+        out.flush();
+        String reply = in.readLine();
+        if (reply == null) throw new IOException("Сервер закрыл соединение");
+        if (!reply.startsWith("OK")) {
+            errors.increment();
+            throw new IOException(command + ": " + reply);
+        }
+        return reply;
+    }
+
+    public String report(long elapsedNanos, int concurrentSessions) {
+        double seconds = elapsedNanos / 1e9;
+        int cores = Runtime.getRuntime().availableProcessors();
+        double gamesPerSecond = games.sum() / Math.max(seconds, 1e-9);
+        return String.format("партий=%d побед=%d ходов=%d ошибок=%d одновременно=%d за %.1f с%n"
+                        + "ход: p50=%.1f мкс p99=%.1f мкс max=%.1f мкс%n"
+                        + "партий/с=%.0f партий/с на ядро=%.0f ходов/с=%.0f одновременных партий на ядро=%.0f (ядер: %d)",
+                games.sum(), wins.sum(), moves.sum(), errors.sum(), concurrentSessions, seconds,
+                moveLatency.percentile(0.5) / 1e3, moveLatency.percentile(0.99) / 1e3,
+                moveLatency.snapshot().getMaxMicros(),
+                gamesPerSecond, gamesPerSecond / cores, moves.sum() / Math.max(seconds, 1e-9),
+                (double) concurrentSessions / cores, cores);
+    }
+}
\ No newline at end of file
@@ -4,6 +4,7 @@ import javax.swing.*;
 
 public class Main {
     public static void main(String[] args) {
+        AssetCache.preload(); // Фон декодируется, пока создаётся окно
         SwingUtilities.invokeLater(() -> new MainMenu());
     }
 }
\ No newline at end of file
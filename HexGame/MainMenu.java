@@ -3,14 +3,15 @@ package HexGame;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import javax.imageio.ImageIO;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class MainMenu extends JFrame {
     private JPanel mainPanel;
     private JPanel levelPanel;
-    private BufferedImage backgroundImage;
+    private JCheckBox noGuessBox;
 
     public MainMenu() {
         setTitle("Hexcells Infinite");
@@ -18,14 +19,7 @@ public class MainMenu extends JFrame {
         setResizable(true);
         setMinimumSize(new Dimension(400, 400));
         setPreferredSize(new Dimension(800, 600));
-
-        // Загружаем фоновое изображение
-        try {
-            backgroundImage = ImageIO.read(new File("background.png"));
-        } catch (IOException e) {
-            System.err.println("Не удалось загрузить фоновое изображение: " + e.getMessage());
-            backgroundImage = null;
-        }
+        BoardPool.shared(); // Пул начинает готовить доски, пока игрок выбирает уровень
 
         // Основная панель с главным меню
         mainPanel = new BackgroundPanel();
@@ -41,12 +35,31 @@ public class MainMenu extends JFrame {
         titleLabel.setForeground(Color.WHITE);
         mainPanel.add(titleLabel, gbc);
 
+        // Кнопка "Продолжить": незаконченная партия из автосохранения
+        if (Files.exists(SaveFile.AUTOSAVE)) {
+            JButton continueButton = new JButton("Продолжить");
+            continueButton.setPreferredSize(new Dimension(200, 50));
+            continueButton.addActionListener(e -> loadGame(SaveFile.AUTOSAVE));
+            mainPanel.add(continueButton, gbc);
+        }
+
         // Кнопка "Уровни"
         JButton levelsButton = new JButton("Уровни");
         levelsButton.setPreferredSize(new Dimension(200, 50));
         levelsButton.addActionListener(e -> showLevelMenu());
         mainPanel.add(levelsButton, gbc);
 
+        // Кнопка "Загрузить": партия из выбранного файла
+        JButton loadButton = new JButton("Загрузить");
+        loadButton.setPreferredSize(new Dimension(200, 50));
+        loadButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser(new File("."));
+            if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                loadGame(chooser.getSelectedFile().toPath());
+            }
+        });
+        mainPanel.add(loadButton, gbc);
+
         // Кнопка "Выход"
         JButton exitButton = new JButton("Выход");
         exitButton.setPreferredSize(new Dimension(200, 50));
@@ -78,6 +91,21 @@ public class MainMenu extends JFrame {
         hardButton.addActionListener(e -> startGame(Board.Level.HARD));
         levelPanel.add(hardButton, gbc);
 
+        // Режим без угадывания: доска решается логикой от первого хода
+        noGuessBox = new JCheckBox("Без угадывания");
+        noGuessBox.setOpaque(false);
+        noGuessBox.setForeground(Color.WHITE);
+        noGuessBox.addActionListener(e -> {
+            if (noGuessBox.isSelected()) BoardPool.shared().warmUp(true);
+        });
+        levelPanel.add(noGuessBox, gbc);
+
+        // Бесконечный режим: доска без границ, счёт — число открытых клеток
+        JButton infiniteButton = new JButton("Бесконечный");
+        infiniteButton.setPreferredSize(new Dimension(200, 50));
+        infiniteButton.addActionListener(e -> startInfinite());
+        levelPanel.add(infiniteButton, gbc);
+
         JButton backButton = new JButton("Назад");
         backButton.setPreferredSize(new Dimension(200, 50));
         backButton.addActionListener(e -> showMainMenu());
@@ -105,16 +133,38 @@ public class MainMenu extends JFrame {
 
     private void startGame(Board.Level level) {
         dispose();
-        new HexcellsUI(level);
+        new HexcellsUI(level, noGuessBox.isSelected());
+    }
+
+    private void startInfinite() {
+        dispose();
+        new InfiniteUI();
+    }
+
+    private void loadGame(Path path) {
+        Game game;
+        try {
+            game = SaveFile.read(path);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Не удалось загрузить игру: " + e.getMessage());
+            return;
+        }
+        dispose();
+        new HexcellsUI(game);
     }
 
     private class BackgroundPanel extends JPanel {
+        BackgroundPanel() {
+            AssetCache.repaintWhenLoaded(this);
+        }
+
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
-            if (backgroundImage != null) {
-                // Растягиваем изображение под размер панели
-                g.drawImage(backgroundImage, 0, 0, getWidth(), getHeight(), this);
+            // Фон из общего кеша, уже растянутый под размер панели
+            BufferedImage background = AssetCache.scaledBackground(getWidth(), getHeight(), getGraphicsConfiguration());
+            if (background != null) {
+                g.drawImage(background, 0, 0, null);
             } else {
                 g.setColor(Color.WHITE);
                 g.fillRect(0, 0, getWidth(), getHeight());
@@ -0,0 +1,121 @@
+package HexGame;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+// Метрики времени выполнения: гистограммы задержек, счётчики, MXBean и события JFR.
+// Включаются свойством -Dhexgame.metrics=true; флаг статический и final, поэтому в выключенном состоянии
+// JIT выбрасывает проверки целиком, а start() не вызывает даже System.nanoTime()
+public class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("hexgame.metrics");
+
+    public enum Timer { GENERATE, HINT, CHECK_WIN, MOVE, PAINT }
+
+    public enum Counter { MOVES, HINTS, GAMES_STARTED, GAMES_WON, GAMES_LOST }
+
+    private static final Timer[] TIMERS = Timer.values();
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[TIMERS.length];
+    private static final LongAdder[] COUNTERS = new LongAdder[Counter.values().length];
+    // Тип события запрашивается только при включённых метриках, чтобы не поднимать JFR зря
+    private static final EventType OPERATION_EVENT = ENABLED ? EventType.getEventType(OperationEvent.class) : null;
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) HISTOGRAMS[i] = new LatencyHistogram();
+        for (int i = 0; i < COUNTERS.length; i++) COUNTERS[i] = new LongAdder();
+        if (ENABLED) register();
+    }
+
+    private Metrics() {}
+
+    // Метка начала замера; 0, если метрики выключены
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public static void stop(Timer timer, long start) {
+        if (!ENABLED) return;
+        long nanos = System.nanoTime() - start;
+        HISTOGRAMS[timer.ordinal()].record(nanos);
+        // Событие создаётся, только когда запись JFR его принимает
+        if (!OPERATION_EVENT.isEnabled()) return;
+        OperationEvent event = new OperationEvent();
+        if (event.shouldCommit()) {
+            event.operation = timer.name();
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    public static void increment(Counter counter) {
+        if (ENABLED) COUNTERS[counter.ordinal()].increment();
+    }
+
+    public static long count(Counter counter) { return COUNTERS[counter.ordinal()].sum(); }
+    public static LatencyHistogram histogram(Timer timer) { return HISTOGRAMS[timer.ordinal()]; }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) histogram.reset();
+        for (LongAdder counter : COUNTERS) counter.reset();
+    }
+
+    // Текстовая сводка, например для вывода при выходе
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Counter counter : Counter.values()) {
+            sb.append(counter.name().toLowerCase()).append('=').append(count(counter)).append(' ');
+        }
+        sb.append('\n');
+        for (Timer timer : TIMERS) {
+            sb.append(String.format("%-9s %s%n", timer.name().toLowerCase(), histogram(timer).snapshot()));
+        }
+        return sb.toString();
+    }
+
+    private static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName("HexGame:type=Metrics"));
+        } catch (JMException e) {
+            System.err.println("Не удалось зарегистрировать MBean метрик: " + e.getMessage());
+        }
+    }
+
+    // Событие JFR на каждый замер; длительность хранится в поле, так как событие создаётся после операции
+    @Name("hexgame.Operation")
+    @Label("Hexcells Operation")
+    @Category("Hexcells")
+    @Description("Длительность генерации, подсказки, проверки победы, хода или отрисовки")
+    @StackTrace(false)
+    static final class OperationEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+
+    private static final class Bean implements MetricsMXBean {
+        @Override public long getMoves() { return count(Counter.MOVES); }
+        @Override public long getHints() { return count(Counter.HINTS); }
+        @Override public long getGamesStarted() { return count(Counter.GAMES_STARTED); }
+        @Override public long getGamesWon() { return count(Counter.GAMES_WON); }
+        @Override public long getGamesLost() { return count(Counter.GAMES_LOST); }
+        @Override public LatencyHistogram.Snapshot getGenerateLatency() { return histogram(Timer.GENERATE).snapshot(); }
+        @Override public LatencyHistogram.Snapshot getHintLatency() { return histogram(Timer.HINT).snapshot(); }
+        @Override public LatencyHistogram.Snapshot getCheckWinLatency() { return histogram(Timer.CHECK_WIN).snapshot(); }
+        @Override public LatencyHistogram.Snapshot getMoveLatency() { return histogram(Timer.MOVE).snapshot(); }
+        @Override public LatencyHistogram.Snapshot getPaintLatency() { return histogram(Timer.PAINT).snapshot(); }
+        @Override public void reset() { Metrics.reset(); }
+    }
+}
\ No newline at end of file
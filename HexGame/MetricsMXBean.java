@@ -0,0 +1,18 @@
+package HexGame;
+
+// Метрики игры в JMX под именем HexGame:type=Metrics
+public interface MetricsMXBean {
+    long getMoves();
+    long getHints();
+    long getGamesStarted();
+    long getGamesWon();
+    long getGamesLost();
+
+    LatencyHistogram.Snapshot getGenerateLatency();
+    LatencyHistogram.Snapshot getHintLatency();
+    LatencyHistogram.Snapshot getCheckWinLatency();
+    LatencyHistogram.Snapshot getMoveLatency();
+    LatencyHistogram.Snapshot getPaintLatency();
+
+    void reset();
+}
\ No newline at end of file
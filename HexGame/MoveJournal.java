@@ -0,0 +1,52 @@
+package HexGame;
+
+// Журнал ходов для отмены и повтора. Каждое изменение клетки — одно int: индекс << 2 | вид << 1 | начало хода,
+// так что ход стоит 4 байта на изменённую клетку, а отмена и повтор проходят только по записям своего хода
+public class MoveJournal {
+    public static final int REVEAL = 0;
+    public static final int FLAG = 1;
+    private static final int MOVE_START = 1;
+    // Индекс клетки занимает 30 бит
+    public static final int MAX_CELLS = 1 << 30;
+
+    private final IntList entries = new IntList();
+    private int cursor;           // Записи до курсора применены, начиная с него — доступны для повтора
+    private boolean startPending; // Следующая запись открывает новый ход
+
+    // Новый ход отбрасывает отменённые ходы
+    public void beginMove() {
+        entries.truncate(cursor);
+        startPending = true;
+    }
+
+    public void record(int kind, int index) {
+        entries.add(index << 2 | kind << 1 | (startPending ? MOVE_START : 0));
+        startPending = false;
+        cursor = entries.size();
+    }
+
+    public boolean canUndo() { return cursor > 0; }
+    public boolean canRedo() { return cursor < entries.size(); }
+    public int position() { return cursor; }
+    public int entry(int i) { return entries.get(i); }
+    public int size() { return entries.size(); }
+
+    public static int index(int entry) { return entry >>> 2; }
+    public static int kind(int entry) { return entry >>> 1 & 1; }
+
+    // Шаг назад на один ход: записи [результат, прежний курсор) нужно отменить
+    public int stepBack() {
+        int i = cursor - 1;
+        while ((entries.get(i) & MOVE_START) == 0) i--;
+        cursor = i;
+        return i;
+    }
+
+    // Шаг вперёд на один ход: записи [прежний курсор, результат) нужно применить заново
+    public int stepForward() {
+        int i = cursor + 1;
+        while (i < entries.size() && (entries.get(i) & MOVE_START) == 0) i++;
+        cursor = i;
+        return i;
+    }
+}
\ No newline at end of file
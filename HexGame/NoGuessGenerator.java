@@ -0,0 +1,65 @@
+package HexGame;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Поиск доски, которую Solver решает от первой клетки без угадывания.
+// Кандидаты с производными зёрнами проверяются параллельно, первый успех останавливает остальных
+public class NoGuessGenerator {
+    public static final long DEFAULT_BUDGET_MILLIS = 1500;
+
+    private NoGuessGenerator() {}
+
+    // Сгенерированная решаемая доска с параметрами template или null, если бюджет времени исчерпан
+    public static Board find(Board template, int startRow, int startCol, long budgetMillis) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int workers = Math.max(pool.getParallelism(), 1);
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        AtomicReference<Board> winner = new AtomicReference<>();
+
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[workers];
+        for (int w = 0; w < workers; w++) {
+            int worker = w;
+            tasks[w] = pool.submit(() -> {
+                for (long k = worker; winner.get() == null && System.nanoTime() < deadline; k += workers) {
+                    Board candidate = template.withSeed(candidateSeed(template.getSeed(), k));
+                    if (isSolvable(candidate, startRow, startCol)) {
+                        winner.compareAndSet(null, candidate);
+                    }
+                }
+            });
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return winner.get();
+    }
+
+    // Играет доску одной логикой вывода; решаема, если открыты все безопасные клетки
+    public static boolean isSolvable(Board board, int startRow, int startCol) {
+        Game game = Game.uninstrumented(board);
+        game.setAutoReveal(true);
+        game.openFirstCell(startRow, startCol);
+        Solver solver = game.getSolver();
+        HexGrid grid = board.getGrid();
+        int move;
+        while (!game.isGameOver() && (move = solver.pollMove()) >= 0) {
+            int index = Solver.moveCell(move);
+            if (Solver.moveAction(move) == Solver.OPEN) {
+                game.openCell(grid.rowOf(index), grid.colOf(index));
+            } else {
+                game.toggleFlag(grid.rowOf(index), grid.colOf(index));
+            }
+        }
+        return game.getUnrevealedSafeCount() == 0;
+    }
+
+    // SplitMix64 от номера кандидата: зёрна различны и не зависят от числа потоков
+    static long candidateSeed(long seed, long k) {
+        long z = seed + (k + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
\ No newline at end of file
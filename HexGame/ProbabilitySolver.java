@@ -0,0 +1,743 @@
+package HexGame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+// Точные вероятности синих клеток, когда безопасного вывода нет.
+// Граница делится на независимые компоненты, каждая перебирается с отсечениями (параллельно),
+// затем компоненты сводятся вместе с общим числом синих клеток доски
+public class ProbabilitySolver {
+    private static final int MAX_EXACT_VARS = 200;       // Больше переменных — сразу выборка
+    private static final long NODE_BUDGET = 2_000_000;  // Предел узлов перебора одной компоненты
+    private static final int SAMPLE_COUNT = 400;
+    // Предел узлов всех попыток выборки одной компоненты. Бюджет в узлах, а не во времени, чтобы подсказка зависела
+    // только от позиции: Replayer сверяет её с записанной при любой загрузке ядер
+    private static final long SAMPLE_NODE_BUDGET = 1_000_000;
+    // Предел памяти кеша на весь процесс, включая все сессии GameServer; таблица perVar компоненты из m клеток —
+    // m * (m + 1) чисел, то есть до 320 КБ, поэтому ограничение по числу компонент не держало память
+    private static final long MAX_CACHE_BYTES = 32L << 20;
+    private static final int MAX_EXACT_FRONTIER = 2000; // Больше — сведение компонент через геометрическое приближение
+
+    private final Board board;
+    private final Solver solver;
+    private final HexGrid grid;
+    // Результат зависит только от содержимого компоненты, поэтому кеш общий для всех решателей,
+    // в том числе для копий доски, на которых подсказки считаются в фоне. Порядок доступа: при переполнении
+    // вытесняются давно не встречавшиеся компоненты, а не весь кеш сразу
+    private static final LinkedHashMap<ComponentKey, ComponentResult> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private static long cacheBytes; // Под замком cache
+    private static final BooleanSupplier NOT_CANCELLED = () -> false;
+    private static final long CANCEL_CHECK_MASK = (1 << 16) - 1; // Проверка отмены раз в 65536 узлов перебора
+    private int[] varId; // Номер переменной для клетки границы, -1 для остальных
+    private double interiorProbability; // Для любой закрытой клетки вне границы
+    private long[] marked;              // Открытые клетки, ограничения которых уже собраны
+
+    public ProbabilitySolver(Board board, Solver solver) {
+        this.board = board;
+        this.solver = solver;
+        this.grid = board.getGrid();
+    }
+
+    public static final class Guess {
+        public final int index;
+        public final double probability; // Вероятность, что клетка синяя
+        public final boolean exact;      // false, если где-то понадобилась выборка или приближение
+
+        Guess(int index, double probability, boolean exact) {
+            this.index = index;
+            this.probability = probability;
+            this.exact = exact;
+        }
+    }
+
+    // Закрытая клетка без флага с наименьшей вероятностью быть синей или null, если таких нет
+    public Guess lowestRisk(int totalBlue) {
+        return lowestRisk(totalBlue, NOT_CANCELLED);
+    }
+
+    // Вариант с отменой: если cancelled вернёт true, перебор прерывается CancellationException
+    public Guess lowestRisk(int totalBlue, BooleanSupplier cancelled) {
+        int size = grid.size();
+        if (varId == null) {
+            varId = new int[size];
+            Arrays.fill(varId, -1);
+        }
+
+        long[] active = board.activePlane();
+        long[] revealed = board.revealedPlane();
+        long[] flagged = board.flaggedPlane();
+        long[] safe = solver.knownSafePlane();
+        long[] blue = solver.knownBluePlane();
+        int knownBlue = 0;
+        int unknown = 0;
+        int open = 0;
+        for (int w = 0; w < active.length; w++) {
+            knownBlue += Long.bitCount(active[w] & blue[w]);
+            unknown += Long.bitCount(active[w] & ~revealed[w] & ~safe[w] & ~blue[w]);
+            open += Long.bitCount(active[w] & revealed[w]);
+        }
+
+        // Ограничения: открытые клетки с неизвестными соседями, в виде [остаток, n, v1..vn].
+        // Обходим меньшее из множеств: неизвестные клетки с их открытыми соседями или сами открытые клетки
+        IntList varCells = new IntList();
+        IntList constraints = new IntList();
+        if (unknown <= open) {
+            if (marked == null) marked = Bits.create(size);
+            IntList sources = new IntList();
+            for (int w = 0; w < active.length; w++) {
+                for (long bits = active[w] & ~revealed[w] & ~safe[w] & ~blue[w]; bits != 0; bits &= bits - 1) {
+                    int i = w << 6 | Long.numberOfTrailingZeros(bits);
+                    for (int s = grid.neighborStart(i), e = grid.neighborEnd(i); s < e; s++) {
+                        int neighbor = grid.neighborAt(s);
+                        if (Bits.get(revealed, neighbor) && !Bits.get(marked, neighbor)) {
+                            Bits.set(marked, neighbor);
+                            sources.add(neighbor);
+                            addConstraint(neighbor, varCells, constraints);
+                        }
+                    }
+                }
+            }
+            for (int j = 0; j < sources.size(); j++) Bits.clear(marked, sources.get(j));
+        } else {
+            for (int w = 0; w < active.length; w++) {
+                for (long bits = active[w] & revealed[w]; bits != 0; bits &= bits - 1) {
+                    addConstraint(w << 6 | Long.numberOfTrailingZeros(bits), varCells, constraints);
+                }
+            }
+        }
+        int frontier = varCells.size();
+        int interior = unknown - frontier;
+        int remainingBlue = totalBlue - knownBlue;
+
+        int interiorCandidate = -1;
+        for (int w = 0; w < active.length && interiorCandidate < 0 && interior > 0; w++) {
+            for (long bits = active[w] & ~revealed[w] & ~flagged[w] & ~safe[w] & ~blue[w]; bits != 0; bits &= bits - 1) {
+                int i = w << 6 | Long.numberOfTrailingZeros(bits);
+                if (varId[i] < 0) {
+                    interiorCandidate = i;
+                    break;
+                }
+            }
+        }
+
+        List<Component> components = splitComponents(varCells, constraints);
+        for (int v = 0; v < frontier; v++) varId[varCells.get(v)] = -1;
+
+        ComponentResult[] results = components.parallelStream()
+                .map(component -> solveCached(component, cancelled))
+                .toArray(ComponentResult[]::new);
+
+        double[] probability = new double[frontier];
+        boolean exact = combine(components, results, frontier, interior, remainingBlue, probability);
+        for (ComponentResult result : results) exact &= result.exact;
+
+        // Выбираем наименьший риск среди клеток границы и одной внутренней клетки
+        int best = -1;
+        double bestProbability = 2;
+        int offset = 0;
+        for (int i = 0; i < components.size(); i++) {
+            int[] cells = components.get(i).cells;
+            for (int v = 0; v < cells.length; v++) {
+                double p = probability[offset + v];
+                if (!board.isFlagged(cells[v]) && p < bestProbability) {
+                    best = cells[v];
+                    bestProbability = p;
+                }
+            }
+            offset += cells.length;
+        }
+        if (interiorCandidate >= 0) {
+            double p = interiorProbability;
+            if (p < bestProbability) {
+                best = interiorCandidate;
+                bestProbability = p;
+            }
+        }
+        if (best < 0) return null;
+        return new Guess(best, Math.max(0, Math.min(1, bestProbability)), exact);
+    }
+
+    // Ограничение открытой клетки i, если у неё есть неизвестные соседи; новые соседи получают номера переменных
+    private void addConstraint(int i, IntList varCells, IntList constraints) {
+        if (board.isBlue(i)) return;
+        int target = board.getClue(i);
+        int header = constraints.size();
+        int count = 0;
+        constraints.add(0);
+        constraints.add(0);
+        for (int s = grid.neighborStart(i), e = grid.neighborEnd(i); s < e; s++) {
+            int neighbor = grid.neighborAt(s);
+            if (solver.isKnownBlue(neighbor)) {
+                target--;
+            } else if (!board.isRevealed(neighbor) && !solver.isKnownSafe(neighbor)) {
+                if (varId[neighbor] < 0) {
+                    varId[neighbor] = varCells.size();
+                    varCells.add(neighbor);
+                }
+                constraints.add(varId[neighbor]);
+                count++;
+            }
+        }
+        if (count == 0) {
+            constraints.truncate(header);
+        } else {
+            constraints.set(header, target);
+            constraints.set(header + 1, count);
+        }
+    }
+
+    // Сводим компоненты: вес суммарного числа синих K на границе умножается на C(interior, remainingBlue - K)
+    private boolean combine(List<Component> components, ComponentResult[] results, int frontier,
+                            int interior, int remainingBlue, double[] probability) {
+        double[] weight = binomialWeights(frontier, interior, remainingBlue);
+        int count = results.length;
+        if (frontier > MAX_EXACT_FRONTIER) {
+            combineGeometric(components, results, interior, remainingBlue, probability);
+            return false;
+        }
+
+        int[] offsets = new int[count + 1];
+        for (int i = 0; i < count; i++) offsets[i + 1] = offsets[i] + components.get(i).cells.length;
+
+        // tail[i][j] ~ сумма по расстановкам компонент i.. с s синими клетками веса weight[j + s]:
+        // пересчёт назад стоит O(F * m_i) на компоненту вместо свёртки всех остальных
+        double[][] tail = new double[count + 1][];
+        tail[count] = weight;
+        for (int i = count - 1; i >= 0; i--) {
+            double[] counts = results[i].counts;
+            double[] next = tail[i + 1];
+            double[] current = new double[offsets[i] + 1];
+            for (int j = 0; j < current.length; j++) {
+                double sum = 0;
+                for (int k = 0; k < counts.length && j + k < next.length; k++) sum += counts[k] * next[j + k];
+                current[j] = sum;
+            }
+            tail[i] = normalize(current);
+        }
+
+        double[] prefix = {1};
+        for (int i = 0; i < count; i++) {
+            ComponentResult result = results[i];
+            double[] next = tail[i + 1];
+            int m = result.counts.length - 1;
+            double[] g = new double[m + 1];
+            for (int k = 0; k <= m; k++) {
+                double sum = 0;
+                for (int before = 0; before < prefix.length && before + k < next.length; before++) {
+                    sum += prefix[before] * next[before + k];
+                }
+                g[k] = sum;
+            }
+            double z = 0;
+            for (int k = 0; k <= m; k++) z += result.counts[k] * g[k];
+            for (int v = 0; v < m; v++) {
+                double p;
+                if (result.perVar != null && z > 0) {
+                    double sum = 0;
+                    for (int k = 0; k <= m; k++) sum += result.perVar[v][k] * g[k];
+                    p = sum / z;
+                } else {
+                    p = result.marginal[v];
+                }
+                probability[offsets[i] + v] = p;
+            }
+            prefix = normalize(convolve(prefix, result.counts));
+        }
+
+        double[] total = prefix;
+        double z = 0;
+        double blueInside = 0;
+        for (int k = 0; k < total.length && k < weight.length; k++) {
+            double w = total[k] * weight[k];
+            z += w;
+            blueInside += w * (remainingBlue - k);
+        }
+        interiorProbability = interior > 0 && z > 0 ? blueInside / z / interior : 1;
+        return true;
+    }
+
+    // Для очень длинной границы: вес C(U, R - K) заменяется на rho^K вокруг ожидаемого K, компоненты становятся независимыми
+    private void combineGeometric(List<Component> components, ComponentResult[] results, int interior,
+                                  int remainingBlue, double[] probability) {
+        double expected = 0;
+        for (ComponentResult result : results) expected += mean(result.counts, 1);
+        double logRho = 0;
+        for (int iteration = 0; iteration < 3; iteration++) {
+            double inside = Math.max(remainingBlue - expected, 0.5);
+            double outside = Math.max(interior - inside, 0.5);
+            logRho = interior > 0 ? Math.log(inside / outside) : 0;
+            expected = 0;
+            for (ComponentResult result : results) expected += mean(result.counts, Math.exp(logRho));
+        }
+        interiorProbability = interior > 0 ? Math.max(remainingBlue - expected, 0) / interior : 1;
+
+        int offset = 0;
+        for (int i = 0; i < results.length; i++) {
+            ComponentResult result = results[i];
+            int m = result.counts.length - 1;
+            double[] tilt = new double[m + 1];
+            double shift = logRho > 0 ? logRho * m : 0;
+            double z = 0;
+            for (int k = 0; k <= m; k++) {
+                tilt[k] = Math.exp(logRho * k - shift);
+                z += result.counts[k] * tilt[k];
+            }
+            for (int v = 0; v < m; v++) {
+                double p = result.marginal[v];
+                if (result.perVar != null && z > 0) {
+                    double sum = 0;
+                    for (int k = 0; k <= m; k++) sum += result.perVar[v][k] * tilt[k];
+                    p = sum / z;
+                }
+                probability[offset + v] = p;
+            }
+            offset += components.get(i).cells.length;
+        }
+    }
+
+    private static double mean(double[] counts, double rho) {
+        double z = 0;
+        double sum = 0;
+        double w = 1;
+        for (int k = 0; k < counts.length; k++) {
+            z += counts[k] * w;
+            sum += counts[k] * w * k;
+            w *= rho;
+            if (w > 1e250) {
+                z /= w;
+                sum /= w;
+                w = 1;
+            }
+        }
+        return z > 0 ? sum / z : 0;
+    }
+
+    // weight[K] ~ C(interior, remainingBlue - K), нормированы на максимум; при несовместимости — без учёта общего числа
+    private static double[] binomialWeights(int frontier, int interior, int remainingBlue) {
+        double[] log = new double[frontier + 1];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k <= frontier; k++) {
+            int m = remainingBlue - k;
+            log[k] = m < 0 || m > interior ? Double.NEGATIVE_INFINITY : logBinomial(interior, m);
+            max = Math.max(max, log[k]);
+        }
+        double[] weight = new double[frontier + 1];
+        for (int k = 0; k <= frontier; k++) {
+            weight[k] = max == Double.NEGATIVE_INFINITY ? 1 : Math.exp(log[k] - max);
+        }
+        return weight;
+    }
+
+    private static double logBinomial(int n, int k) {
+        return logGamma(n + 1.0) - logGamma(k + 1.0) - logGamma(n - k + 1.0);
+    }
+
+    // Приближение Ланцоша, g = 7
+    private static final double[] LANCZOS = {
+            0.99999999999980993, 676.5203681218851, -1259.1392167224028, 771.32342877765313,
+            -176.61502916214059, 12.507343278686905, -0.13857109526572012,
+            9.9843695780195716e-6, 1.5056327351493116e-7};
+
+    private static double logGamma(double x) {
+        if (x < 0.5) return Math.log(Math.PI / Math.abs(Math.sin(Math.PI * x))) - logGamma(1 - x);
+        x -= 1;
+        double a = LANCZOS[0];
+        double t = x + 7.5;
+        for (int i = 1; i < 9; i++) a += LANCZOS[i] / (x + i);
+        return 0.5 * Math.log(2 * Math.PI) + (x + 0.5) * Math.log(t) - t + Math.log(a);
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) continue;
+            for (int j = 0; j < b.length; j++) result[i + j] += a[i] * b[j];
+        }
+        return result;
+    }
+
+    private static double[] normalize(double[] values) {
+        double max = 0;
+        for (double value : values) max = Math.max(max, value);
+        if (max > 0) {
+            for (int i = 0; i < values.length; i++) values[i] /= max;
+        }
+        return values;
+    }
+
+    // Компоненты связности переменных через общие ограничения (система непересекающихся множеств)
+    private List<Component> splitComponents(IntList varCells, IntList constraints) {
+        int frontier = varCells.size();
+        int[] parent = new int[frontier];
+        for (int v = 0; v < frontier; v++) parent[v] = v;
+        for (int p = 0; p < constraints.size(); p += 2 + constraints.get(p + 1)) {
+            int first = constraints.get(p + 2);
+            for (int j = 1; j < constraints.get(p + 1); j++) {
+                union(parent, first, constraints.get(p + 2 + j));
+            }
+        }
+
+        int[] componentOf = new int[frontier];
+        int[] localId = new int[frontier];
+        int[] rootComponent = new int[frontier];
+        Arrays.fill(rootComponent, -1);
+        List<IntList> vars = new ArrayList<>();
+        for (int v = 0; v < frontier; v++) {
+            int root = find(parent, v);
+            if (rootComponent[root] < 0) {
+                rootComponent[root] = vars.size();
+                vars.add(new IntList());
+            }
+            int component = rootComponent[root];
+            componentOf[v] = component;
+            localId[v] = vars.get(component).size();
+            vars.get(component).add(v);
+        }
+
+        List<IntList> componentConstraints = new ArrayList<>();
+        for (int i = 0; i < vars.size(); i++) componentConstraints.add(new IntList());
+        for (int p = 0; p < constraints.size(); p += 2 + constraints.get(p + 1)) {
+            int n = constraints.get(p + 1);
+            IntList target = componentConstraints.get(componentOf[constraints.get(p + 2)]);
+            target.add(constraints.get(p));
+            target.add(n);
+            for (int j = 0; j < n; j++) target.add(localId[constraints.get(p + 2 + j)]);
+        }
+
+        List<Component> components = new ArrayList<>(vars.size());
+        for (int i = 0; i < vars.size(); i++) {
+            IntList local = vars.get(i);
+            int[] cells = new int[local.size()];
+            for (int v = 0; v < cells.length; v++) cells[v] = varCells.get(local.get(v));
+            components.add(new Component(cells, componentConstraints.get(i).toArray()));
+        }
+        return components;
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) parent[ra] = rb;
+    }
+
+    // Между подсказками большинство компонент не меняется, поэтому результаты запоминаются по их содержимому
+    private ComponentResult solveCached(Component component, BooleanSupplier cancelled) {
+        ComponentKey key = new ComponentKey(component);
+        ComponentResult result;
+        synchronized (cache) {
+            result = cache.get(key);
+        }
+        if (result == null) {
+            result = solve(component, cancelled);
+            if (result.exact) remember(key, result);
+        }
+        return result;
+    }
+
+    // Перебор идёт вне замка; под ним только вставка и вытеснение самых старых записей до предела памяти
+    private static void remember(ComponentKey key, ComponentResult result) {
+        synchronized (cache) {
+            if (cache.putIfAbsent(key, result) != null) return;
+            cacheBytes += estimateBytes(key, result);
+            Iterator<Map.Entry<ComponentKey, ComponentResult>> eldest = cache.entrySet().iterator();
+            while (cacheBytes > MAX_CACHE_BYTES && eldest.hasNext()) {
+                Map.Entry<ComponentKey, ComponentResult> entry = eldest.next();
+                cacheBytes -= estimateBytes(entry.getKey(), entry.getValue());
+                eldest.remove();
+            }
+        }
+    }
+
+    // Массивы ключа и результата; заголовки объектов не считаются
+    private static long estimateBytes(ComponentKey key, ComponentResult result) {
+        long m = key.cells.length;
+        long bytes = 4 * (m + key.constraints.length) + 8 * (result.counts.length + m);
+        if (result.perVar != null) bytes += 8 * m * (m + 1) + 16 * m;
+        return bytes;
+    }
+
+    private ComponentResult solve(Component component, BooleanSupplier cancelled) {
+        if (component.cells.length <= MAX_EXACT_VARS) {
+            Enumerator enumerator = new Enumerator(component, cancelled);
+            if (enumerator.run()) return enumerator.result();
+        }
+        return sample(component, cancelled);
+    }
+
+    // Ограничение на выборку: случайный обход с отсечениями находит совместные расстановки, частоты дают оценку
+    private ComponentResult sample(Component component, BooleanSupplier cancelled) {
+        int m = component.cells.length;
+        Enumerator enumerator = new Enumerator(component, cancelled);
+        SplittableRandom random = new SplittableRandom(Arrays.hashCode(component.cells));
+        double[] counts = new double[m + 1];
+        double[] marginal = new double[m];
+        int found = 0;
+        long spent = 0;
+        for (int attempt = 0; attempt < SAMPLE_COUNT * 4 && found < SAMPLE_COUNT && spent < SAMPLE_NODE_BUDGET; attempt++) {
+            if (cancelled.getAsBoolean()) throw new CancellationException();
+            boolean sampled = enumerator.sampleOnce(random, 40L * m + 1000);
+            spent += enumerator.nodes;
+            if (!sampled) continue;
+            found++;
+            int blues = 0;
+            for (int v = 0; v < m; v++) {
+                if (enumerator.value[v] == 1) {
+                    marginal[v]++;
+                    blues++;
+                }
+            }
+            counts[blues]++;
+        }
+        if (found == 0) {
+            // Ни одной расстановки за бюджет: средняя плотность ограничений вокруг клетки
+            return localEstimate(component);
+        }
+        for (int v = 0; v < m; v++) marginal[v] /= found;
+        return new ComponentResult(normalize(counts), null, marginal, false);
+    }
+
+    private static ComponentResult localEstimate(Component component) {
+        int m = component.cells.length;
+        double[] sum = new double[m];
+        int[] hits = new int[m];
+        int[] data = component.constraints;
+        for (int p = 0; p < data.length; p += 2 + data[p + 1]) {
+            double density = (double) data[p] / data[p + 1];
+            for (int j = 0; j < data[p + 1]; j++) {
+                sum[data[p + 2 + j]] += density;
+                hits[data[p + 2 + j]]++;
+            }
+        }
+        double[] marginal = new double[m];
+        double expected = 0;
+        for (int v = 0; v < m; v++) {
+            marginal[v] = hits[v] > 0 ? sum[v] / hits[v] : 0.5;
+            expected += marginal[v];
+        }
+        double[] counts = new double[m + 1];
+        counts[(int) Math.round(Math.min(expected, m))] = 1;
+        return new ComponentResult(counts, null, marginal, false);
+    }
+
+    private static final class Component {
+        final int[] cells;       // Клетки-переменные
+        final int[] constraints; // [остаток, n, локальные номера переменных...]
+
+        Component(int[] cells, int[] constraints) {
+            this.cells = cells;
+            this.constraints = constraints;
+        }
+    }
+
+    private static final class ComponentKey {
+        private final int[] cells;
+        private final int[] constraints;
+        private final int hash;
+
+        ComponentKey(Component component) {
+            this.cells = component.cells;
+            this.constraints = component.constraints;
+            this.hash = 31 * Arrays.hashCode(cells) + Arrays.hashCode(constraints);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ComponentKey)) return false;
+            ComponentKey other = (ComponentKey) o;
+            return hash == other.hash && Arrays.equals(cells, other.cells) && Arrays.equals(constraints, other.constraints);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+    }
+
+    private static final class ComponentResult {
+        final double[] counts;   // counts[k] ~ число расстановок с k синими клетками
+        final double[][] perVar; // perVar[v][k] ~ из них с синей клеткой v; null для выборки
+        final double[] marginal; // Оценка вероятности для выборки
+        final boolean exact;
+
+        ComponentResult(double[] counts, double[][] perVar, double[] marginal, boolean exact) {
+            this.counts = counts;
+            this.perVar = perVar;
+            this.marginal = marginal;
+            this.exact = exact;
+        }
+    }
+
+    // Перебор с отсечениями: после каждого присваивания каждое затронутое ограничение должно оставаться достижимым
+    private static final class Enumerator {
+        private final int m;
+        private final int[][] varConstraints;
+        private final int[] target;
+        private final int[] sum;
+        private final int[] left;
+        final int[] value;
+        private final int[] first;  // Случайно выбранное первое значение переменной в обходе
+        private final int[] branch; // Сколько значений переменной уже испробовано
+        private final double[] counts;
+        private final double[][] perVar;
+        private final BooleanSupplier cancelled;
+        private long nodes;
+        private long budget;
+
+        Enumerator(Component component, BooleanSupplier cancelled) {
+            this.m = component.cells.length;
+            this.cancelled = cancelled;
+            int[] data = component.constraints;
+            int constraintCount = 0;
+            int[] degree = new int[m];
+            for (int p = 0; p < data.length; p += 2 + data[p + 1]) {
+                constraintCount++;
+                for (int j = 0; j < data[p + 1]; j++) degree[data[p + 2 + j]]++;
+            }
+            this.target = new int[constraintCount];
+            this.sum = new int[constraintCount];
+            this.left = new int[constraintCount];
+            this.varConstraints = new int[m][];
+            for (int v = 0; v < m; v++) varConstraints[v] = new int[degree[v]];
+            Arrays.fill(degree, 0);
+            int c = 0;
+            for (int p = 0; p < data.length; p += 2 + data[p + 1], c++) {
+                target[c] = data[p];
+                left[c] = data[p + 1];
+                for (int j = 0; j < data[p + 1]; j++) {
+                    int v = data[p + 2 + j];
+                    varConstraints[v][degree[v]++] = c;
+                }
+            }
+            this.value = new int[m];
+            this.first = new int[m];
+            this.branch = new int[m];
+            this.counts = new double[m + 1];
+            this.perVar = m <= MAX_EXACT_VARS ? new double[m][m + 1] : null;
+        }
+
+        boolean run() {
+            budget = NODE_BUDGET;
+            return enumerate(0, 0);
+        }
+
+        ComponentResult result() {
+            double max = 0;
+            for (double count : counts) max = Math.max(max, count);
+            double[] marginal = new double[m];
+            double total = 0;
+            for (double count : counts) total += count;
+            for (int v = 0; v < m; v++) {
+                double blue = 0;
+                for (int k = 0; k <= m; k++) {
+                    blue += perVar[v][k];
+                    perVar[v][k] /= max;
+                }
+                marginal[v] = total > 0 ? blue / total : 0.5;
+            }
+            for (int k = 0; k <= m; k++) counts[k] /= max;
+            return new ComponentResult(counts, perVar, marginal, true);
+        }
+
+        private boolean enumerate(int pos, int blues) {
+            if (++nodes > budget) return false;
+            if ((nodes & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) throw new CancellationException();
+            if (pos == m) {
+                counts[blues]++;
+                for (int v = 0; v < m; v++) {
+                    if (value[v] == 1) perVar[v][blues]++;
+                }
+                return true;
+            }
+            for (int val = 0; val <= 1; val++) {
+                if (!assign(pos, val)) continue;
+                value[pos] = val;
+                boolean completed = enumerate(pos + 1, blues + val);
+                unassign(pos, val);
+                if (!completed) return false;
+            }
+            return true;
+        }
+
+        // Одна случайная совместная расстановка; false, если не нашлась за бюджет узлов
+        boolean sampleOnce(SplittableRandom random, long nodeBudget) {
+            nodes = 0;
+            budget = nodeBudget;
+            return randomWalk(random);
+        }
+
+        // Выборка идёт по компонентам любого размера, поэтому обход без рекурсии: глубина стека Java не зависит от m.
+        // pos — вершина стека, first и branch хранят состояние каждого уровня; порядок узлов и обращений к random
+        // тот же, что у обхода в глубину
+        private boolean randomWalk(SplittableRandom random) {
+            int pos = 0;
+            boolean entering = true;
+            while (true) {
+                if (entering) {
+                    if (++nodes > budget || pos == m) {
+                        boolean found = pos == m && nodes <= budget;
+                        for (int v = pos - 1; v >= 0; v--) unassign(v, value[v]);
+                        return found;
+                    }
+                    first[pos] = random.nextInt(2);
+                    branch[pos] = 0;
+                } else {
+                    // Поддерево под текущим значением не дало расстановки
+                    unassign(pos, value[pos]);
+                    if (nodes > budget) {
+                        for (int v = pos - 1; v >= 0; v--) unassign(v, value[v]);
+                        return false;
+                    }
+                    branch[pos]++;
+                }
+                entering = false;
+                for (; branch[pos] < 2; branch[pos]++) {
+                    int val = first[pos] ^ branch[pos];
+                    if (assign(pos, val)) {
+                        value[pos] = val;
+                        entering = true;
+                        break;
+                    }
+                }
+                if (entering) {
+                    pos++;
+                } else if (pos == 0) {
+                    return false;
+                } else {
+                    pos--;
+                }
+            }
+        }
+
+        private boolean assign(int v, int val) {
+            int[] cs = varConstraints[v];
+            boolean ok = true;
+            for (int c : cs) {
+                sum[c] += val;
+                left[c]--;
+                if (sum[c] > target[c] || sum[c] + left[c] < target[c]) ok = false;
+            }
+            if (!ok) unassign(v, val);
+            return ok;
+        }
+
+        private void unassign(int v, int val) {
+            for (int c : varConstraints[v]) {
+                sum[c] -= val;
+                left[c]++;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+package HexGame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Запись партии для воспроизведения: зерно и параметры доски плюс поток ходов с отметками времени.
+// Ходы копятся в памяти по несколько байт и пишутся одним файлом в конце; проверяет запись Replayer.
+// Формат (little-endian):
+//   0  int    магия "HXRP"        4  short версия        6  short флаги
+//   8  int    строки             12  int   столбцы      16  double плотность синих
+//  24  long   зерно              32  byte  уровень (-1 — своя доска), 3 байта выравнивания
+//  36  long   начало, мс эпохи   44  int   байт событий
+//  48  int    открыто клеток     52  int   флагов       56  long  хеш открытых клеток и флагов
+//  64  события: varint пауза в мс от прошлого события, varint (значение << 3 | тип)
+public class ReplayRecorder {
+    public static final Path DIRECTORY = Paths.get("replays");
+    static final int MAGIC = 0x50525848; // "HXRP" в little-endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int FLAG_NO_GUESS = 1;
+    static final int FLAG_AUTO_REVEAL = 2; // Автооткрытие в начале партии; переключения идут событиями
+    static final int FLAG_RECTANGULAR = 4;
+    static final int FLAG_POOLED = 8;      // Расстановка из BoardPool: повторяется по зерну иначе, чем обычная
+    static final int FLAG_GAME_OVER = 16;
+    static final int FLAG_WON = 32;
+    // Типы событий; значение — индекс клетки, код подсказки или 0/1 автооткрытия
+    static final int OPEN = 0;
+    static final int FLAG = 1;
+    static final int UNDO = 2;
+    static final int REDO = 3;
+    static final int HINT = 4;
+    static final int AUTO_REVEAL = 5;
+
+    private final Game game;
+    private final boolean initialAutoReveal;
+    private final long startMillis;
+    private long lastMillis;
+    private byte[] events = new byte[256];
+    private int size;
+    private boolean hasMoves;
+
+    // Запись ведётся с первого хода, поэтому партия должна начинаться с неразмеченной доски.
+    // Своя маска формы в заголовок не входит, такие доски не записываются
+    public ReplayRecorder(Game game) {
+        if (game.getBoard().isInitialized()) {
+            throw new IllegalArgumentException("Запись возможна только с начала партии");
+        }
+        if (game.getBoard().hasCustomShape()) {
+            throw new IllegalArgumentException("Доски со своей формой не записываются");
+        }
+        this.game = game;
+        this.initialAutoReveal = game.isAutoReveal();
+        this.startMillis = System.currentTimeMillis();
+        this.lastMillis = startMillis;
+        game.setRecorder(this);
+    }
+
+    void open(int index) {
+        hasMoves = true;
+        event(OPEN, index);
+    }
+
+    void flag(int index) {
+        hasMoves = true;
+        event(FLAG, index);
+    }
+
+    void undo() { event(UNDO, 0); }
+    void redo() { event(REDO, 0); }
+    void autoReveal(boolean enabled) { event(AUTO_REVEAL, enabled ? 1 : 0); }
+
+    // Показанная игроку подсказка; при воспроизведении она должна получиться такой же
+    public void hint(int[] hint) {
+        event(HINT, hintCode(hint, game.getBoard().getGrid()));
+    }
+
+    // 0 — подсказок нет, иначе индекс * 3 + действие + 1
+    static long hintCode(int[] hint, HexGrid grid) {
+        return hint == null ? 0 : (long) grid.index(hint[0], hint[1]) * 3 + hint[2] + 1;
+    }
+
+    public boolean hasMoves() { return hasMoves; }
+
+    private void event(int type, long value) {
+        long now = System.currentTimeMillis();
+        writeVarLong(Math.max(0, now - lastMillis));
+        lastMillis = now;
+        writeVarLong(value << 3 | type);
+    }
+
+    private void writeVarLong(long value) {
+        if (events.length - size < 10) events = Arrays.copyOf(events, events.length * 2);
+        while ((value & ~0x7FL) != 0) {
+            events[size++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        events[size++] = (byte) value;
+    }
+
+    // Хеш итогового состояния: открытые клетки и флаги пословно
+    static long stateHash(Board board) {
+        long hash = 0;
+        long[] revealed = board.revealedPlane();
+        long[] flagged = board.flaggedPlane();
+        for (int w = 0; w < revealed.length; w++) {
+            hash = (hash ^ revealed[w]) * 0x9E3779B97F4A7C15L;
+            hash = (hash ^ flagged[w]) * 0xBF58476D1CE4E5B9L;
+        }
+        return hash ^ hash >>> 31;
+    }
+
+    // Пишет запись в каталог под именем из времени начала и зерна; возвращает путь файла
+    public Path write(Path directory) throws IOException {
+        Board board = game.getBoard();
+        HexGrid grid = board.getGrid();
+        int flags = (board.isNoGuess() ? FLAG_NO_GUESS : 0)
+                | (initialAutoReveal ? FLAG_AUTO_REVEAL : 0)
+                | (board.isRectangular() ? FLAG_RECTANGULAR : 0)
+                | (board.isPooledLayout() ? FLAG_POOLED : 0)
+                | (game.isGameOver() ? FLAG_GAME_OVER : 0)
+                | (game.isWon() ? FLAG_WON : 0);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC)
+                .putShort((short) VERSION)
+                .putShort((short) flags)
+                .putInt(grid.getRows())
+                .putInt(grid.getCols())
+                .putDouble(board.getBlueProbability())
+                .putLong(board.getSeed())
+                .put((byte) (board.getLevel() == null ? -1 : board.getLevel().ordinal()))
+                .put(new byte[3])
+                .putLong(startMillis)
+                .putInt(size)
+                .putInt(Bits.count(board.revealedPlane()))
+                .putInt(Bits.count(board.flaggedPlane()))
+                .putLong(stateHash(board))
+                .put(events, 0, size);
+        buffer.flip();
+
+        Files.createDirectories(directory);
+        Path path = directory.resolve(String.format("%tY%<tm%<td-%<tH%<tM%<tS-%016x.hxr", startMillis, board.getSeed()));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+        return path;
+    }
+}
\ No newline at end of file
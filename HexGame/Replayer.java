@@ -0,0 +1,264 @@
+package HexGame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+// Консольное воспроизведение записей ReplayRecorder без Swing: партия повторяется ходами через Game с полной скоростью,
+// подсказки и итоговое состояние сверяются с записанными. Корпус записей — и регрессионный тест, и бенчмарк.
+// Запуск: Replayer [-rounds N] [-threads N] файл|каталог...   или   Replayer -record партий каталог [уровень]
+public class Replayer {
+    private static final int MAX_REPORTED = 10;
+    private static final BooleanSupplier NOT_CANCELLED = () -> false;
+
+    private final List<Path> paths = new ArrayList<>();
+    private final List<byte[]> replays = new ArrayList<>();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final Queue<String> failures = new ConcurrentLinkedQueue<>();
+    private final LongAdder failureCount = new LongAdder();
+    private long elapsedNanos;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length >= 3 && args[0].equals("-record")) {
+            Board.Level level = args.length > 3 ? Board.Level.valueOf(args[3].toUpperCase()) : Board.Level.HARD;
+            record(Integer.parseInt(args[1]), Paths.get(args[2]), level, Long.getLong("hexgame.seed", System.nanoTime()));
+            return;
+        }
+        int rounds = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Replayer replayer = new Replayer();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-rounds")) {
+                rounds = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                replayer.add(Paths.get(args[i]));
+            }
+        }
+        if (args.length == 0) replayer.add(ReplayRecorder.DIRECTORY);
+        replayer.run(rounds, threads);
+        System.out.println(replayer.report(threads));
+        if (replayer.failureCount.sum() > 0) System.exit(1);
+    }
+
+    // Файлы читаются в память заранее, чтобы замер не включал диск
+    public void add(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                for (Path file : (Iterable<Path>) files.filter(p -> p.toString().endsWith(".hxr")).sorted()::iterator) {
+                    add(file);
+                }
+            }
+            return;
+        }
+        paths.add(path);
+        replays.add(Files.readAllBytes(path));
+    }
+
+    // Потоки разбирают записи из общего счётчика; каждая запись проигрывается rounds раз
+    public void run(int rounds, int threads) throws InterruptedException {
+        long total = (long) rounds * replays.size();
+        AtomicLong next = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (long k = next.getAndIncrement(); k < total; k = next.getAndIncrement()) {
+                    int i = (int) (k % replays.size());
+                    String failure;
+                    try {
+                        failure = verify(replays.get(i));
+                    } catch (IOException | RuntimeException e) {
+                        failure = e.toString();
+                    }
+                    verified.increment();
+                    if (failure != null) {
+                        failureCount.increment();
+                        if (failures.size() < MAX_REPORTED) failures.add(paths.get(i) + ": " + failure);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    public String report(int threads) {
+        double seconds = elapsedNanos / 1e9;
+        double perSecond = verified.sum() / Math.max(seconds, 1e-9);
+        StringBuilder report = new StringBuilder(String.format(
+                "записей %d, проиграно %d, расхождений %d, событий %d за %.2f с: %.0f записей/с, %.0f записей/с на ядро",
+                replays.size(), verified.sum(), failureCount.sum(), events.sum(), seconds,
+                perSecond, perSecond / Math.min(threads, Runtime.getRuntime().availableProcessors())));
+        for (String failure : failures) report.append('\n').append("  ").append(failure);
+        return report.toString();
+    }
+
+    // null, если партия повторилась; иначе описание первого расхождения
+    String verify(byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if (data.length < ReplayRecorder.HEADER_BYTES || buffer.getInt() != ReplayRecorder.MAGIC) {
+            throw new IOException("Это не запись партии Hexcells");
+        }
+        int version = buffer.getShort();
+        if (version > ReplayRecorder.VERSION) {
+            throw new IOException("Версия записи " + version + " новее поддерживаемой " + ReplayRecorder.VERSION);
+        }
+        int flags = buffer.getShort();
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        double blueProbability = buffer.getDouble();
+        long seed = buffer.getLong();
+        int levelOrdinal = buffer.get();
+        buffer.position(buffer.position() + 3);
+        buffer.getLong(); // Время начала нужно только человеку
+        int eventBytes = buffer.getInt();
+        int revealedCount = buffer.getInt();
+        int flaggedCount = buffer.getInt();
+        long stateHash = buffer.getLong();
+        if (eventBytes != buffer.remaining()) throw new IOException("Длина событий не совпадает с заголовком");
+
+        Board.Level[] levels = Board.Level.values();
+        if (levelOrdinal >= levels.length) throw new IOException("Неизвестный уровень " + levelOrdinal);
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > MoveJournal.MAX_CELLS) {
+            throw new IOException("Неверный размер доски " + rows + "x" + cols);
+        }
+        // Без пула и без поиска NoGuessGenerator: зерно в записи уже итоговое
+        Board board = levelOrdinal >= 0
+                ? new Board(levels[levelOrdinal], seed)
+                : new Board(rows, cols, blueProbability, (flags & ReplayRecorder.FLAG_RECTANGULAR) != 0, seed);
+        HexGrid grid = board.getGrid();
+        if (grid.getRows() != rows || grid.getCols() != cols) throw new IOException("Размер доски не совпадает с уровнем");
+        Game game = Game.uninstrumented(board);
+        game.setAutoReveal((flags & ReplayRecorder.FLAG_AUTO_REVEAL) != 0);
+        HintTracker hints = new HintTracker(board.copy(), false);
+        game.addListener(hints);
+
+        int count = 0;
+        while (buffer.hasRemaining()) {
+            readVarLong(buffer); // Паузы между ходами при проверке не выдерживаются
+            long word = readVarLong(buffer);
+            int type = (int) (word & 7);
+            long value = word >>> 3;
+            count++;
+            if (type == ReplayRecorder.HINT) {
+                // Тот же HintTracker, что у HintService, только события приходят в этом же потоке
+                long actual = ReplayRecorder.hintCode(hints.compute(NOT_CANCELLED).hint, grid);
+                if (actual != value) {
+                    return "событие " + count + ": подсказка " + describeHint(actual, grid)
+                            + " вместо " + describeHint(value, grid);
+                }
+                continue;
+            }
+            if (type == ReplayRecorder.AUTO_REVEAL) {
+                game.setAutoReveal(value != 0);
+                continue;
+            }
+            boolean done;
+            if (type == ReplayRecorder.UNDO) {
+                done = game.undo().length > 0;
+            } else if (type == ReplayRecorder.REDO) {
+                done = game.redo().length > 0;
+            } else if (value < grid.size() && (type == ReplayRecorder.OPEN || type == ReplayRecorder.FLAG)) {
+                int r = grid.rowOf((int) value);
+                int c = grid.colOf((int) value);
+                if (type == ReplayRecorder.FLAG) {
+                    done = game.toggleFlag(r, c);
+                } else {
+                    if ((flags & ReplayRecorder.FLAG_POOLED) != 0) board.generatePooledLayout(r, c);
+                    done = game.openFirstCell(r, c).length > 0;
+                }
+            } else {
+                throw new IOException("Неверное событие " + type + " со значением " + value);
+            }
+            if (!done) return "событие " + count + ": ход " + type + "/" + value + " не выполнен";
+        }
+        events.add(count);
+
+        boolean over = (flags & ReplayRecorder.FLAG_GAME_OVER) != 0;
+        boolean won = (flags & ReplayRecorder.FLAG_WON) != 0;
+        if (game.isGameOver() != over || game.isWon() != won) {
+            return "итог " + outcome(game.isGameOver(), game.isWon()) + " вместо " + outcome(over, won);
+        }
+        int revealed = Bits.count(board.revealedPlane());
+        int flagged = Bits.count(board.flaggedPlane());
+        if (revealed != revealedCount || flagged != flaggedCount || ReplayRecorder.stateHash(board) != stateHash) {
+            return "открыто " + revealed + "/" + revealedCount + ", флагов " + flagged + "/" + flaggedCount
+                    + ", состояние доски не совпадает";
+        }
+        return null;
+    }
+
+    private static long readVarLong(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) throw new IOException("Запись обрезана");
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("Слишком длинное число в записи");
+    }
+
+    private static String describeHint(long code, HexGrid grid) {
+        if (code == 0) return "нет";
+        int index = (int) ((code - 1) / 3);
+        return "(" + grid.rowOf(index) + "," + grid.colOf(index) + ")/" + (code - 1) % 3;
+    }
+
+    private static String outcome(boolean over, boolean won) {
+        return !over ? "не окончена" : won ? "победа" : "поражение";
+    }
+
+    // Корпус для проверки без живых игроков: бот играет по подсказкам, изредка отменяя и повторяя ходы
+    static void record(int count, Path directory, Board.Level level, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int g = 0; g < count; g++) {
+            Board board = new Board(level, random.nextLong());
+            HexGrid grid = board.getGrid();
+            Game game = Game.uninstrumented(board);
+            ReplayRecorder recorder = new ReplayRecorder(game);
+            HintTracker hints = new HintTracker(board.copy(), false);
+            game.addListener(hints);
+            game.setAutoReveal(random.nextBoolean());
+            int start;
+            do {
+                start = random.nextInt(grid.size());
+            } while (!board.isActive(start));
+            game.openFirstCell(grid.rowOf(start), grid.colOf(start));
+            while (!game.isGameOver()) {
+                if (random.nextInt(20) == 0 && game.canUndo()) {
+                    game.undo();
+                    game.redo();
+                }
+                int[] hint = hints.compute(NOT_CANCELLED).hint;
+                recorder.hint(hint);
+                if (hint == null) break;
+                if (hint[2] == Solver.FLAG) {
+                    game.toggleFlag(hint[0], hint[1]);
+                } else {
+                    game.openCell(hint[0], hint[1]);
+                }
+            }
+            recorder.write(directory);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+package HexGame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Двоичное сохранение партии: заголовок с параметрами доски и четыре битовые плоскости целыми словами.
+// Подсказки, счётчики и вывод Solver восстанавливаются из плоскостей при загрузке.
+// Формат (little-endian):
+//   0  int    магия "HXSV"        4  short версия        6  short флаги
+//   8  int    строки             12  int   столбцы      16  double плотность синих
+//  24  long   зерно              32  byte  уровень (-1 — своя доска), 3 байта выравнивания
+//  36  int    слов в плоскости   40  long[] active, blue, revealed, flagged
+public class SaveFile {
+    public static final Path AUTOSAVE = Paths.get("autosave.hxs");
+    static final int MAGIC = 0x56535848; // "HXSV" в little-endian
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    private static final int FLAG_INITIALIZED = 1;
+    private static final int FLAG_NO_GUESS = 2;
+    private static final int FLAG_AUTO_REVEAL = 4;
+    private static final int FLAG_RECTANGULAR = 8;
+    private static final int FLAG_CUSTOM_SHAPE = 16; // Маска активных клеток из BoardSpec берётся из файла
+    // Файлы меньше читаются одним вызовом: отображение в память окупается только на больших досках,
+    // а на Windows ещё и мешает заменить файл до сборки мусора
+    private static final long MAP_THRESHOLD = 1 << 20;
+
+    private SaveFile() {}
+
+    // Неизменяемая копия состояния: снимается в потоке интерфейса, пишется в любом другом
+    public static final class Snapshot {
+        final int rows;
+        final int cols;
+        final double blueProbability;
+        final long seed;
+        final int level;
+        final int flags;
+        final long[] active;
+        final long[] blue;
+        final long[] revealed;
+        final long[] flagged;
+
+        private Snapshot(Game game) {
+            Board board = game.getBoard();
+            HexGrid grid = board.getGrid();
+            this.rows = grid.getRows();
+            this.cols = grid.getCols();
+            this.blueProbability = board.getBlueProbability();
+            this.seed = board.getSeed();
+            this.level = board.getLevel() == null ? -1 : board.getLevel().ordinal();
+            this.flags = (board.isInitialized() ? FLAG_INITIALIZED : 0)
+                    | (board.isNoGuess() ? FLAG_NO_GUESS : 0)
+                    | (game.isAutoReveal() ? FLAG_AUTO_REVEAL : 0)
+                    | (board.isRectangular() ? FLAG_RECTANGULAR : 0)
+                    | (board.hasCustomShape() ? FLAG_CUSTOM_SHAPE : 0);
+            this.active = board.activePlane().clone();
+            this.blue = board.bluePlane().clone();
+            this.revealed = board.revealedPlane().clone();
+            this.flagged = board.flaggedPlane().clone();
+        }
+    }
+
+    public static Snapshot snapshot(Game game) {
+        return new Snapshot(game);
+    }
+
+    public static void write(Game game, Path path) throws IOException {
+        write(snapshot(game), path);
+    }
+
+    // Пишем во временный файл рядом и переименовываем, чтобы прерванная запись не портила прошлое сохранение
+    public static void write(Snapshot snapshot, Path path) throws IOException {
+        int words = snapshot.active.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 4 * words * 8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC)
+                .putShort((short) VERSION)
+                .putShort((short) snapshot.flags)
+                .putInt(snapshot.rows)
+                .putInt(snapshot.cols)
+                .putDouble(snapshot.blueProbability)
+                .putLong(snapshot.seed)
+                .put((byte) snapshot.level)
+                .put(new byte[3])
+                .putInt(words);
+        LongBuffer longs = buffer.asLongBuffer();
+        longs.put(snapshot.active).put(snapshot.blue).put(snapshot.revealed).put(snapshot.flagged);
+        buffer.rewind();
+
+        Path absolute = path.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+        }
+        try {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public static Game read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) throw new IOException("Файл сохранения слишком короткий: " + size + " байт");
+            if (size >= MAP_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) throw new IOException("Файл сохранения обрезан");
+                }
+                buffer.flip();
+            }
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.getInt() != MAGIC) throw new IOException("Это не файл сохранения Hexcells");
+        int version = buffer.getShort();
+        if (version > VERSION) throw new IOException("Версия сохранения " + version + " новее поддерживаемой " + VERSION);
+        int flags = buffer.getShort();
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        double blueProbability = buffer.getDouble();
+        long seed = buffer.getLong();
+        int levelOrdinal = buffer.get();
+        buffer.position(buffer.position() + 3);
+        int words = buffer.getInt();
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IOException("Неверный размер доски " + rows + "x" + cols);
+        }
+        if (words != ((long) rows * cols + 63) / 64 || buffer.remaining() != (long) words * 4 * 8) {
+            throw new IOException("Размер плоскостей не совпадает с заголовком");
+        }
+
+        LongBuffer longs = buffer.asLongBuffer();
+        long[] active = new long[words];
+        longs.get(active);
+
+        Board.Level[] levels = Board.Level.values();
+        if (levelOrdinal >= levels.length) throw new IOException("Неизвестный уровень " + levelOrdinal);
+        Board board;
+        if (levelOrdinal >= 0) {
+            board = new Board(levels[levelOrdinal], seed);
+        } else if ((flags & FLAG_CUSTOM_SHAPE) != 0) {
+            board = new Board(new BoardSpec(rows, cols, blueProbability, active), seed);
+        } else {
+            board = new Board(rows, cols, blueProbability, (flags & FLAG_RECTANGULAR) != 0, seed);
+        }
+        if (board.getGrid().getRows() != rows || board.getGrid().getCols() != cols) {
+            throw new IOException("Размер доски не совпадает с уровнем " + levels[levelOrdinal]);
+        }
+        if (!Arrays.equals(active, board.activePlane())) throw new IOException("Маска активных клеток не совпадает с формой доски");
+        longs.get(board.bluePlane());
+        longs.get(board.revealedPlane());
+        longs.get(board.flaggedPlane());
+        board.setNoGuess((flags & FLAG_NO_GUESS) != 0);
+        board.restore((flags & FLAG_INITIALIZED) != 0);
+
+        Game game = new Game(board);
+        game.setAutoReveal((flags & FLAG_AUTO_REVEAL) != 0);
+        return game;
+    }
+}
\ No newline at end of file
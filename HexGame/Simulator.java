@@ -0,0 +1,154 @@
+package HexGame;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Консольный прогон множества партий ботом на логике подсказок, без Swing.
+// Запуск: Simulator [партий]  или  Simulator партий строк столбцов плотность [diamond]
+public class Simulator {
+    private final int rows;
+    private final int cols;
+    private final double blueProbability;
+    private final boolean isRectangular;
+
+    private final LongAdder games = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder winsWithoutGuess = new LongAdder();
+    private final LongAdder guesses = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private long elapsedNanos;
+
+    public Simulator(int rows, int cols, double blueProbability, boolean isRectangular) {
+        this.rows = rows;
+        this.cols = cols;
+        this.blueProbability = blueProbability;
+        this.isRectangular = isRectangular;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long count = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        long seed = Long.getLong("hexgame.seed", System.nanoTime());
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length >= 4) {
+            boolean rectangular = args.length < 5 || !args[4].equalsIgnoreCase("diamond");
+            Simulator simulator = new Simulator(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                    Double.parseDouble(args[3]), rectangular);
+            simulator.run(count, threads, seed);
+            System.out.println(simulator.report(args[1] + "x" + args[2] + " p=" + args[3]));
+            if (Metrics.ENABLED) System.out.print(Metrics.report());
+            return;
+        }
+        for (Board.Level level : Board.Level.values()) {
+            Simulator simulator = new Simulator(level.rows, level.cols, level.blueProbability, level.isRectangular);
+            simulator.run(count, threads, seed);
+            System.out.println(simulator.report(level.name()));
+        }
+        if (Metrics.ENABLED) System.out.print(Metrics.report());
+    }
+
+    // Каждый поток получает свой поток случайных чисел; итоги собираются в LongAdder без блокировок
+    public void run(long count, int threads, long seed) throws InterruptedException {
+        SplittableRandom master = new SplittableRandom(seed);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = master.split();
+            long share = count / threads + (t < count % threads ? 1 : 0);
+            executor.execute(() -> {
+                for (long g = 0; g < share; g++) {
+                    playGame(random);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    private void playGame(SplittableRandom random) {
+        Board board = new Board(rows, cols, blueProbability, isRectangular, random.nextLong());
+        HexGrid grid = board.getGrid();
+        Game game = new Game(board);
+        game.setAutoReveal(true);
+        Solver solver = game.getSolver();
+
+        int start = randomCandidate(board, solver, random);
+        game.openFirstCell(grid.rowOf(start), grid.colOf(start));
+        long gameMoves = 1;
+        long gameGuesses = 0;
+        while (!game.isGameOver()) {
+            int move = solver.pollMove();
+            int index;
+            if (move >= 0) {
+                index = Solver.moveCell(move);
+                if (Solver.moveAction(move) == Solver.FLAG) {
+                    game.toggleFlag(grid.rowOf(index), grid.colOf(index));
+                    gameMoves++;
+                    continue;
+                }
+            } else if (game.getUnrevealedSafeCount() == 0) {
+                // Безопасных клеток не осталось: все закрытые без флага синие, угадывать нечего
+                gameMoves += flagRemaining(game, board);
+                break;
+            } else {
+                index = randomCandidate(board, solver, random);
+                if (index < 0) break;
+                gameGuesses++;
+            }
+            game.openCell(grid.rowOf(index), grid.colOf(index));
+            gameMoves++;
+        }
+
+        games.increment();
+        moves.add(gameMoves);
+        guesses.add(gameGuesses);
+        if (game.isWon()) {
+            wins.increment();
+            if (gameGuesses == 0) winsWithoutGuess.increment();
+        }
+    }
+
+    // Ставит флаги на все закрытые клетки без флага; возвращает число ходов
+    private static long flagRemaining(Game game, Board board) {
+        HexGrid grid = board.getGrid();
+        long flagged = 0;
+        for (int i = 0; i < grid.size(); i++) {
+            if (board.isActive(i) && !board.isRevealed(i) && !board.isFlagged(i)) {
+                game.toggleFlag(grid.rowOf(i), grid.colOf(i));
+                flagged++;
+            }
+        }
+        return flagged;
+    }
+
+    // Случайная закрытая клетка без флага, о которой логика ничего не знает; -1 если таких нет
+    private static int randomCandidate(Board board, Solver solver, SplittableRandom random) {
+        int size = board.getGrid().size();
+        for (int attempt = 0; attempt < 64; attempt++) {
+            int index = random.nextInt(size);
+            if (isCandidate(board, solver, index)) return index;
+        }
+        int offset = random.nextInt(size);
+        for (int i = 0; i < size; i++) {
+            int index = (offset + i) % size;
+            if (isCandidate(board, solver, index)) return index;
+        }
+        return -1;
+    }
+
+    private static boolean isCandidate(Board board, Solver solver, int index) {
+        return board.isActive(index) && !board.isRevealed(index) && !board.isFlagged(index)
+                && !solver.isKnownBlue(index);
+    }
+
+    public String report(String name) {
+        long total = Math.max(games.sum(), 1);
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%-16s партий=%d побед=%.2f%% без угадывания=%.2f%% угадываний/партию=%.3f ходов/партию=%.1f партий/с=%.0f",
+                name, games.sum(), 100.0 * wins.sum() / total, 100.0 * winsWithoutGuess.sum() / total,
+                (double) guesses.sum() / total, (double) moves.sum() / total, games.sum() / Math.max(seconds, 1e-9));
+    }
+}
\ No newline at end of file
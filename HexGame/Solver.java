@@ -0,0 +1,183 @@
+package HexGame;
+
+import java.util.Arrays;
+
+// Инкрементальный вывод ходов: пересматриваются только открытые клетки, чьё окружение изменилось
+public class Solver {
+    public static final int OPEN = 0;
+    public static final int FLAG = 1;
+
+    private final Board board;
+    private final HexGrid grid;
+    private final long[] knownSafe;
+    private final long[] knownBlue;
+    private final long[] queued;     // Клетка уже стоит в рабочем списке
+    private final IntQueue worklist; // Открытые клетки, которые нужно пересмотреть
+    private final IntQueue moves;    // Выведенные ходы в виде index << 1 | action
+
+    public Solver(Board board) {
+        this.board = board;
+        this.grid = board.getGrid();
+        int size = grid.size();
+        this.knownSafe = Bits.create(size);
+        this.knownBlue = Bits.create(size);
+        this.queued = Bits.create(size);
+        this.worklist = new IntQueue();
+        this.moves = new IntQueue();
+        seed();
+    }
+
+    // Вывод с нуля по текущей позиции: после отмены хода прежние выводы могут опираться на скрытые подсказки
+    public void reset() {
+        Arrays.fill(knownSafe, 0);
+        Arrays.fill(knownBlue, 0);
+        Arrays.fill(queued, 0);
+        worklist.clear();
+        moves.clear();
+        seed();
+    }
+
+    private void seed() {
+        long[] active = board.activePlane();
+        long[] revealed = board.revealedPlane();
+        long[] blue = board.bluePlane();
+        for (int w = 0; w < active.length; w++) {
+            long safe = active[w] & revealed[w] & ~blue[w];
+            knownSafe[w] = safe;
+            queued[w] = safe;
+            for (long bits = safe; bits != 0; bits &= bits - 1) {
+                worklist.add(w << 6 | Long.numberOfTrailingZeros(bits));
+            }
+        }
+    }
+
+    public static int encodeMove(int index, int action) { return index << 1 | action; }
+    public static int moveCell(int move) { return move >>> 1; }
+    public static int moveAction(int move) { return move & 1; }
+
+    // Игра сообщает, что клетка открыта: пересматриваем её и открытых соседей
+    public void cellRevealed(int index) {
+        if (board.isBlue(index)) return;
+        Bits.set(knownSafe, index);
+        enqueue(index);
+        enqueueRevealedNeighbors(index);
+    }
+
+    // Снятый флаг снова делает известную клетку доступным ходом
+    public void flagChanged(int index) {
+        if (board.isFlagged(index)) return;
+        if (Bits.get(knownSafe, index) && !board.isRevealed(index)) {
+            moves.add(encodeMove(index, OPEN));
+        } else if (Bits.get(knownBlue, index)) {
+            moves.add(encodeMove(index, FLAG));
+        }
+    }
+
+    public boolean isKnownSafe(int index) { return Bits.get(knownSafe, index); }
+    public boolean isKnownBlue(int index) { return Bits.get(knownBlue, index); }
+
+    // Плоскости для пословных обходов внутри пакета; только чтение
+    long[] knownSafePlane() { return knownSafe; }
+    long[] knownBluePlane() { return knownBlue; }
+
+    // Первый доступный ход без удаления из очереди, -1 если ходов нет
+    public int peekMove() {
+        refresh();
+        while (!moves.isEmpty()) {
+            int move = moves.peek();
+            if (isPlayable(move)) return move;
+            moves.poll();
+        }
+        return -1;
+    }
+
+    // Доступный выведенный ход с наименьшим индексом клетки, -1 если ходов нет. Выводы сходятся к одному множеству
+    // при любом порядке событий и пересборок, поэтому ответ, в отличие от peekMove, зависит только от позиции
+    public int lowestMove() {
+        refresh();
+        long[] revealed = board.revealedPlane();
+        long[] flagged = board.flaggedPlane();
+        for (int w = 0; w < knownSafe.length; w++) {
+            long safe = knownSafe[w] & ~revealed[w] & ~flagged[w];
+            long blue = knownBlue[w] & ~revealed[w] & ~flagged[w];
+            if ((safe | blue) == 0) continue;
+            int bit = Long.numberOfTrailingZeros(safe | blue);
+            return encodeMove(w << 6 | bit, (blue >>> bit & 1) != 0 ? FLAG : OPEN);
+        }
+        return -1;
+    }
+
+    public int pollMove() {
+        int move = peekMove();
+        if (move >= 0) moves.poll();
+        return move;
+    }
+
+    // Все ходы, которые можно вывести в текущей позиции
+    public int[] derivableMoves() {
+        refresh();
+        for (int i = moves.size(); i > 0; i--) {
+            int move = moves.poll();
+            if (isPlayable(move)) moves.add(move);
+        }
+        return moves.toArray();
+    }
+
+    private boolean isPlayable(int move) {
+        int index = moveCell(move);
+        return !board.isRevealed(index) && !board.isFlagged(index);
+    }
+
+    private void refresh() {
+        while (!worklist.isEmpty()) {
+            int index = worklist.poll();
+            Bits.clear(queued, index);
+            evaluate(index);
+        }
+    }
+
+    // Подсказка клетки минус известные синие соседи: 0 — все неизвестные безопасны, равно числу неизвестных — все синие
+    private void evaluate(int index) {
+        int first = grid.neighborStart(index);
+        int end = grid.neighborEnd(index);
+        int unknown = 0;
+        int blue = 0;
+        for (int s = first; s < end; s++) {
+            int neighbor = grid.neighborAt(s);
+            if (Bits.get(knownBlue, neighbor)) {
+                blue++;
+            } else if (!Bits.get(knownSafe, neighbor)) {
+                unknown++;
+            }
+        }
+        if (unknown == 0) return;
+        int remaining = board.getClue(index) - blue;
+        if (remaining != 0 && remaining != unknown) return;
+        boolean allSafe = remaining == 0;
+        for (int s = first; s < end; s++) {
+            int neighbor = grid.neighborAt(s);
+            if (Bits.get(knownBlue, neighbor) || Bits.get(knownSafe, neighbor)) continue;
+            if (allSafe) {
+                Bits.set(knownSafe, neighbor);
+                moves.add(encodeMove(neighbor, OPEN));
+            } else {
+                Bits.set(knownBlue, neighbor);
+                moves.add(encodeMove(neighbor, FLAG));
+            }
+            enqueueRevealedNeighbors(neighbor);
+        }
+    }
+
+    private void enqueueRevealedNeighbors(int index) {
+        for (int s = grid.neighborStart(index), e = grid.neighborEnd(index); s < e; s++) {
+            int neighbor = grid.neighborAt(s);
+            if (board.isRevealed(neighbor)) enqueue(neighbor);
+        }
+    }
+
+    private void enqueue(int index) {
+        if (board.isBlue(index) || Bits.get(queued, index)) return;
+        Bits.set(queued, index);
+        worklist.add(index);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package HexGame;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Генерация больших досок по полосам: плоскости делятся на отрезки по STRIPE_WORDS слов (полосы строк),
+// каждая полоса заполняется в общем ForkJoinPool своим дочерним SplittableRandom и пишет только свои слова.
+// Разбиение зависит лишь от размера доски, поэтому по зерну получается одна и та же доска при любом числе потоков
+final class StripedGenerator {
+    private static final int STRIPE_WORDS = 1 << 11;
+
+    private StripedGenerator() {}
+
+    // Маска прямоугольника или ромба; возвращает число активных клеток
+    static int fillShape(HexGrid grid, boolean rectangular, long[] active) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        int size = grid.size();
+        int midRow = (rows - 1) / 2;
+        int midCol = (cols - 1) / 2;
+        int[] counts = new int[stripes(active.length)];
+        Stripes.forEach(stripes(active.length), s -> {
+            int count = 0;
+            int from = s * STRIPE_WORDS;
+            int to = Math.min(active.length, from + STRIPE_WORDS);
+            int i = from << 6;
+            int r = i / cols;
+            int c = i % cols;
+            for (int w = from; w < to; w++) {
+                long word = 0;
+                for (int bit = 0; bit < 64 && i < size; bit++, i++) {
+                    if (rectangular || Math.abs(r - midRow) + Math.abs(c - midCol) <= midRow) word |= 1L << bit;
+                    if (++c == cols) {
+                        c = 0;
+                        r++;
+                    }
+                }
+                active[w] = word;
+                count += Long.bitCount(word);
+            }
+            counts[s] = count;
+        });
+        int total = 0;
+        for (int count : counts) total += count;
+        return total;
+    }
+
+    // Синие клетки вне стартовой клетки и её соседей, столько же, сколько при последовательной генерации.
+    // Число синих делится между полосами пропорционально их свободным клеткам (накопленным округлением),
+    // внутри полосы выбор последовательный: клетка берётся с вероятностью «осталось взять / осталось клеток»
+    static void placeBlues(Board board, int start) {
+        HexGrid grid = board.getGrid();
+        long[] active = board.activePlane();
+        long[] blue = board.bluePlane();
+        int stripes = stripes(active.length);
+        int[] excluded = startArea(grid, start);
+
+        int[] eligible = new int[stripes];
+        Stripes.forEach(stripes(active.length), s -> {
+            int count = 0;
+            for (int w = s * STRIPE_WORDS, to = Math.min(active.length, w + STRIPE_WORDS); w < to; w++) {
+                count += Long.bitCount(eligibleWord(active, w, excluded));
+            }
+            eligible[s] = count;
+        });
+        long total = 0;
+        for (int count : eligible) total += count;
+        long blueCount = Math.min((long) (board.getBlueProbability() * board.getActiveCount()), total);
+
+        int[] quota = new int[stripes];
+        SplittableRandom[] randoms = new SplittableRandom[stripes];
+        SplittableRandom root = new SplittableRandom(board.getSeed());
+        long before = 0;
+        long placed = 0;
+        for (int s = 0; s < stripes; s++) {
+            before += eligible[s];
+            long upTo = total == 0 ? 0 : blueCount * before / total;
+            quota[s] = (int) (upTo - placed);
+            placed = upTo;
+            randoms[s] = root.split();
+        }
+
+        Stripes.forEach(stripes(active.length), s -> {
+            SplittableRandom random = randoms[s];
+            int needed = quota[s];
+            int remaining = eligible[s];
+            for (int w = s * STRIPE_WORDS, to = Math.min(active.length, w + STRIPE_WORDS); w < to; w++) {
+                long word = 0;
+                for (long m = eligibleWord(active, w, excluded); m != 0 && needed > 0; m &= m - 1, remaining--) {
+                    if (random.nextInt(remaining) < needed) {
+                        word |= m & -m;
+                        needed--;
+                    }
+                }
+                blue[w] = word;
+            }
+        });
+    }
+
+    private static long eligibleWord(long[] active, int w, int[] excluded) {
+        long word = active[w];
+        for (int index : excluded) {
+            if (index >>> 6 == w) word &= ~(1L << index);
+        }
+        return word;
+    }
+
+    // Стартовая клетка и её соседи по арифметике смещений, без таблицы смежности
+    private static int[] startArea(HexGrid grid, int start) {
+        int r = grid.rowOf(start);
+        int c = grid.colOf(start);
+        int[] area = new int[7];
+        int count = 0;
+        area[count++] = start;
+        for (int k = 0; k < 6; k++) {
+            int nr = HexGrid.neighborRow(r, c, k);
+            int nc = HexGrid.neighborCol(r, c, k);
+            if (grid.isValid(nr, nc)) area[count++] = grid.index(nr, nc);
+        }
+        return Arrays.copyOf(area, count);
+    }
+
+    private static int stripes(int words) {
+        return (words + STRIPE_WORDS - 1) / STRIPE_WORDS;
+    }
+}
\ No newline at end of file
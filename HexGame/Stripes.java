@@ -0,0 +1,30 @@
+package HexGame;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+// Общий для генерации и подсчёта подсказок параллельный проход по полосам доски в общем ForkJoinPool
+final class Stripes {
+    // Клеток; меньшие доски, в том числе все уровни, обрабатываются в вызывающем потоке
+    static final int PARALLEL_THRESHOLD = 1 << 17;
+
+    private Stripes() {}
+
+    // Вызывает stripe для номеров 0..count-1 и ждёт всех; одна полоса выполняется без пула
+    static void forEach(int count, IntConsumer stripe) {
+        if (count == 1) {
+            stripe.accept(0);
+            return;
+        }
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[count];
+        for (int s = 0; s < count; s++) {
+            int index = s;
+            tasks[s] = pool.submit(() -> stripe.accept(index));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+}
\ No newline at end of file
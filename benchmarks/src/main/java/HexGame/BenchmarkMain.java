@@ -0,0 +1,19 @@
+package HexGame;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Запуск JMH с GC-профайлером, чтобы рядом со временем печаталась скорость выделения памяти.
+// Аргументы командной строки JMH передаются как есть, например: java -jar benchmarks.jar GameBenchmark -p size=500
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
\ No newline at end of file
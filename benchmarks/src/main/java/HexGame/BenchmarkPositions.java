@@ -0,0 +1,41 @@
+package HexGame;
+
+// Детерминированные позиции для бенчмарков: квадратная доска плотности 0.2 и партия, сыгранная до середины
+final class BenchmarkPositions {
+    static final double DENSITY = 0.2;
+    static final long SEED = 42;
+
+    private BenchmarkPositions() {}
+
+    static Board generatedBoard(int size) {
+        Board board = new Board(size, size, DENSITY, true, SEED);
+        board.generateBoardForFirstClick(size / 2, size / 2);
+        return board;
+    }
+
+    // Ходим по подсказкам, пока не открыта половина безопасных клеток; без доступного хода открываем заведомо безопасную клетку
+    static Game midGame(int size) {
+        Board board = new Board(size, size, DENSITY, true, SEED);
+        HexGrid grid = board.getGrid();
+        Game game = new Game(board);
+        game.setAutoReveal(true);
+        game.openFirstCell(size / 2, size / 2);
+        int target = game.getUnrevealedSafeCount() / 2;
+        int scan = 0;
+        while (!game.isGameOver() && game.getUnrevealedSafeCount() > target) {
+            int move = game.getSolver().pollMove();
+            if (move >= 0) {
+                int index = Solver.moveCell(move);
+                if (Solver.moveAction(move) == Solver.OPEN) {
+                    game.openCell(grid.rowOf(index), grid.colOf(index));
+                } else {
+                    game.toggleFlag(grid.rowOf(index), grid.colOf(index));
+                }
+                continue;
+            }
+            while (board.isRevealed(scan) || board.isBlue(scan)) scan++;
+            game.openCell(grid.rowOf(scan), grid.colOf(scan));
+        }
+        return game;
+    }
+}
\ No newline at end of file
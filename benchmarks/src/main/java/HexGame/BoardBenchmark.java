@@ -0,0 +1,42 @@
+package HexGame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Создание доски, генерация по первому клику и пересчёт подсказок
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({"5", "50", "500", "2000"})
+    int size;
+
+    Board generated;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generated = BenchmarkPositions.generatedBoard(size);
+    }
+
+    @Benchmark
+    public Board construct() {
+        return new Board(size, size, BenchmarkPositions.DENSITY, true, BenchmarkPositions.SEED);
+    }
+
+    @Benchmark
+    public Board generateBoardForFirstClick() {
+        Board board = new Board(size, size, BenchmarkPositions.DENSITY, true, BenchmarkPositions.SEED);
+        board.generateBoardForFirstClick(size / 2, size / 2);
+        return board;
+    }
+
+    @Benchmark
+    public Board updateClues() {
+        generated.updateClues();
+        return generated;
+    }
+}
\ No newline at end of file
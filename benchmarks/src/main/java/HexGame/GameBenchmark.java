@@ -0,0 +1,65 @@
+package HexGame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Подсказки и проверка победы на позиции середины партии
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    @Param({"5", "50", "500", "2000"})
+    int size;
+
+    Game position;
+    Game game;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        position = BenchmarkPositions.midGame(size);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetGame() {
+        game = BenchmarkPositions.midGame(size);
+    }
+
+    // Подсказка без накопленного состояния: новый Game поверх позиции середины партии
+    @Benchmark
+    public int[] hintFromScratch() {
+        return new Game(position.getBoard()).getHint();
+    }
+
+    // Ход по подсказке и следующая подсказка, как у игрока; закончившаяся партия начинается заново
+    @Benchmark
+    public int[] moveAndHint() {
+        int[] hint = game.getHint();
+        if (hint == null || game.isGameOver()) {
+            game = BenchmarkPositions.midGame(size);
+            hint = game.getHint();
+            if (hint == null) return null;
+        }
+        if (hint[2] == Solver.FLAG) {
+            game.toggleFlag(hint[0], hint[1]);
+        } else {
+            game.openCell(hint[0], hint[1]);
+        }
+        return game.getHint();
+    }
+
+    @Benchmark
+    public boolean checkWin() {
+        return position.checkWin();
+    }
+
+    // Вероятности границы без кэша компонент: новый ProbabilitySolver на каждый вызов
+    @Benchmark
+    public ProbabilitySolver.Guess lowestRisk() {
+        Board board = position.getBoard();
+        return new ProbabilitySolver(board, position.getSolver()).lowestRisk(board.getBlueCount());
+    }
+}
\ No newline at end of file
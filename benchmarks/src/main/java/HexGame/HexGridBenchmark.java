@@ -0,0 +1,45 @@
+package HexGame;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Обход всех соседей всех клеток: старый getNeighbors против курсора по таблице CSR
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexGridBenchmark {
+    @Param({"5", "50", "500", "2000"})
+    int size;
+
+    HexGrid grid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        grid = BenchmarkPositions.generatedBoard(size).getGrid();
+    }
+
+    @Benchmark
+    public void getNeighbors(Blackhole blackhole) {
+        for (int r = 0; r < grid.getRows(); r++) {
+            for (int c = 0; c < grid.getCols(); c++) {
+                for (int neighbor : grid.getNeighbors(r, c)) {
+                    blackhole.consume(neighbor);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void neighborCursor(Blackhole blackhole) {
+        for (int i = 0, n = grid.size(); i < n; i++) {
+            for (int s = grid.neighborStart(i), e = grid.neighborEnd(i); s < e; s++) {
+                blackhole.consume(grid.neighborAt(s));
+            }
+        }
+    }
+}
\ No newline at end of file
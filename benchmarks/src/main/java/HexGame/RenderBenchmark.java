@@ -0,0 +1,91 @@
+package HexGame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Отрисовка в BufferedImage размером с окно и поиск клетки под курсором
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 800;
+
+    @Param({"5", "50", "500", "2000"})
+    int size;
+
+    BufferedImage image;
+    Graphics2D graphics;
+    HexLayout layout;
+    BoardRenderer renderer;
+    BoardRenderer farRenderer; // Камера отдалена до упрощённой отрисовки
+    Rectangle fullClip;
+    Rectangle cellClip;
+    int[] points;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        layout = new HexLayout(30);
+        Game game = BenchmarkPositions.midGame(size);
+        renderer = new BoardRenderer(game, layout);
+        HexLayout farLayout = new HexLayout(30);
+        farLayout.setZoom(0.1, 0, 0);
+        farRenderer = new BoardRenderer(game, farLayout);
+        fullClip = new Rectangle(0, 0, WIDTH, HEIGHT);
+        cellClip = layout.cellBounds(Math.min(size, 5) / 2, Math.min(size, 5) / 2);
+        SplittableRandom random = new SplittableRandom(BenchmarkPositions.SEED);
+        points = new int[2048];
+        for (int i = 0; i < points.length; i += 2) {
+            points[i] = random.nextInt(WIDTH);
+            points[i + 1] = random.nextInt(HEIGHT);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintViewport() {
+        graphics.setClip(fullClip);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, WIDTH, HEIGHT);
+        renderer.paintCells(graphics, fullClip, null, null);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage paintFarZoom() {
+        graphics.setClip(fullClip);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, WIDTH, HEIGHT);
+        farRenderer.paintCells(graphics, fullClip, null, null);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage paintSingleCell() {
+        graphics.setClip(cellClip);
+        renderer.paintCells(graphics, cellClip, null, null);
+        return image;
+    }
+
+    @Benchmark
+    public int[] getHexAt() {
+        int i = next;
+        next = (i + 2) & (points.length - 1);
+        return renderer.hexAt(points[i], points[i + 1]);
+    }
+}
\ No newline at end of file
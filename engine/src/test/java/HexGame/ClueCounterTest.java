@@ -0,0 +1,69 @@
+package HexGame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Побитовый подсчёт ClueCounter против прямого обхода шести соседей каждой клетки
+class ClueCounterTest {
+    private static final int[] ROWS = {1, 2, 3, 8, 17, 65};
+
+    static Stream<Arguments> widthsAndShapes() {
+        return IntStream.rangeClosed(1, 130).boxed()
+                .flatMap(cols -> Stream.of(Arguments.of(cols, true), Arguments.of(cols, false)));
+    }
+
+    @ParameterizedTest(name = "{0} столбцов, прямоугольник: {1}")
+    @MethodSource("widthsAndShapes")
+    void matchesNaiveCount(int cols, boolean rectangular) {
+        for (int rows : ROWS) {
+            SplittableRandom random = new SplittableRandom(rows * 1000L + cols * 2 + (rectangular ? 1 : 0));
+            checkBoard(new Board(rows, cols, 0.5, rectangular, random.nextLong()), random);
+        }
+    }
+
+    // Полосы строк, которые считаются параллельно, сшиваются без расхождений на границах
+    @Test
+    void stripedBoardMatchesNaiveCount() {
+        SplittableRandom random = new SplittableRandom(7);
+        checkBoard(new Board(600, 333, 0.5, false, random.nextLong()), random);
+    }
+
+    private static void checkBoard(Board board, SplittableRandom random) {
+        HexGrid grid = board.getGrid();
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        // Доля синих своя для каждой доски, от пустой до почти сплошной
+        double density = random.nextDouble();
+        for (int i = 0; i < grid.size(); i++) {
+            board.setBlue(i, board.isActive(i) && random.nextDouble() < density);
+        }
+        byte[] clues = new byte[grid.size()];
+        ClueCounter.compute(grid, board.activePlane(), board.bluePlane(), clues);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int index = grid.index(r, c);
+                int expected = board.isActive(index) && !board.isBlue(index) ? naiveCount(board, r, c) : 0;
+                assertEquals(expected, clues[index], rows + "x" + cols + ", клетка (" + r + ", " + c + ")");
+            }
+        }
+    }
+
+    private static int naiveCount(Board board, int r, int c) {
+        HexGrid grid = board.getGrid();
+        int count = 0;
+        for (int k = 0; k < 6; k++) {
+            int nr = HexGrid.neighborRow(r, c, k);
+            int nc = HexGrid.neighborCol(r, c, k);
+            if (grid.isValid(nr, nc) && board.isActive(nr, nc) && board.isBlue(grid.index(nr, nc))) count++;
+        }
+        return count;
+    }
+}
\ No newline at end of file
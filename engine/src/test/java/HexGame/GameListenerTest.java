@@ -0,0 +1,123 @@
+package HexGame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Состояние, собранное только из событий GameListener, должно совпадать с доской после каждого хода
+class GameListenerTest {
+    private static final int GAMES = 300;
+    private static final int MOVES = 400;
+    private static final int SIZE = 25;
+
+    @Test
+    void eventsReplayBoardState() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int t = 0; t < GAMES; t++) {
+            Board board = new Board(SIZE, SIZE, 0.15, t % 3 == 0, t);
+            Game game = Game.uninstrumented(board);
+            game.setAutoReveal(t % 2 == 0);
+            Mirror mirror = new Mirror(board.revealedPlane().length);
+            game.addListener(mirror);
+            game.openFirstCell(SIZE / 2, SIZE / 2);
+            assertEquals(1, mirror.generated, "партия " + t);
+
+            for (int m = 0; m < MOVES; m++) {
+                playRandomMove(game, random);
+                String where = "партия " + t + ", ход " + m;
+                assertArrayEquals(board.revealedPlane(), mirror.revealed, where);
+                assertArrayEquals(board.flaggedPlane(), mirror.flagged, where);
+                assertEquals(game.isGameOver(), mirror.over, where);
+                if (mirror.over) assertEquals(game.isWon(), mirror.won, where);
+            }
+        }
+    }
+
+    // Отмена, повтор, ход по подсказке или в случайную клетку, в том числе недопустимый
+    private static void playRandomMove(Game game, SplittableRandom random) {
+        int roll = random.nextInt(10);
+        if (roll < 2) {
+            game.undo();
+            return;
+        }
+        if (roll < 3) {
+            game.redo();
+            return;
+        }
+        int[] hint = game.getHint();
+        if (hint != null && random.nextInt(3) > 0) {
+            if (hint[2] == Solver.FLAG) {
+                game.toggleFlag(hint[0], hint[1]);
+            } else {
+                game.openCell(hint[0], hint[1]);
+            }
+            return;
+        }
+        int r = random.nextInt(SIZE);
+        int c = random.nextInt(SIZE);
+        if (random.nextBoolean()) {
+            game.toggleFlag(r, c);
+        } else {
+            game.openCell(r, c);
+        }
+    }
+
+    private static final class Mirror implements GameListener {
+        final long[] revealed;
+        final long[] flagged;
+        int generated;
+        boolean over;
+        boolean won;
+
+        Mirror(int words) {
+            this.revealed = new long[words];
+            this.flagged = new long[words];
+        }
+
+        @Override
+        public void boardGenerated(Game game) {
+            generated++;
+        }
+
+        @Override
+        public void cellsRevealed(Game game, IntList cells) {
+            assertFalse(cells.isEmpty(), "пустое событие открытия");
+            for (int i = 0; i < cells.size(); i++) {
+                assertFalse(Bits.get(revealed, cells.get(i)), "клетка открыта дважды");
+                Bits.set(revealed, cells.get(i));
+            }
+        }
+
+        @Override
+        public void cellsConcealed(Game game, IntList cells) {
+            for (int i = 0; i < cells.size(); i++) {
+                assertTrue(Bits.get(revealed, cells.get(i)), "закрыта неоткрытая клетка");
+                Bits.clear(revealed, cells.get(i));
+            }
+        }
+
+        @Override
+        public void flagToggled(Game game, int index, boolean flagged) {
+            assertEquals(!flagged, Bits.get(this.flagged, index), "флаг не переключён");
+            Bits.assign(this.flagged, index, flagged);
+        }
+
+        @Override
+        public void gameOver(Game game, boolean won) {
+            assertFalse(over, "повторное окончание партии");
+            over = true;
+            this.won = won;
+        }
+
+        @Override
+        public void gameResumed(Game game) {
+            assertTrue(over, "возобновлена незаконченная партия");
+            over = false;
+        }
+    }
+}
\ No newline at end of file
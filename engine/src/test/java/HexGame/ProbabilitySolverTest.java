@@ -0,0 +1,105 @@
+package HexGame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Вероятности ProbabilitySolver против полного перебора расстановок на маленьких досках, где Solver застрял
+class ProbabilitySolverTest {
+    private static final int POSITIONS = 300;
+    private static final int MAX_UNKNOWN = 22; // 2^22 расстановок — предел прямого перебора в тесте
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void lowestRiskMatchesBruteForce() {
+        int checked = 0;
+        for (long seed = 1; seed < 10_000 && checked < POSITIONS; seed++) {
+            Board board = new Board(6, 6, 0.3, true, seed);
+            Game game = Game.uninstrumented(board);
+            game.setAutoReveal(true);
+            game.openFirstCell(3, 3);
+            if (!playDeducedMoves(game)) continue;
+            Solver solver = game.getSolver();
+            List<Integer> unknown = new ArrayList<>();
+            int knownBlue = 0;
+            for (int i = 0; i < board.getGrid().size(); i++) {
+                if (!board.isActive(i)) continue;
+                if (solver.isKnownBlue(i)) {
+                    knownBlue++;
+                } else if (!board.isRevealed(i) && !solver.isKnownSafe(i)) {
+                    unknown.add(i);
+                }
+            }
+            if (unknown.size() > MAX_UNKNOWN) continue;
+
+            double[] probability = bruteForce(board, solver, unknown, board.getBlueCount() - knownBlue);
+            double lowest = 2;
+            for (int cell : unknown) {
+                if (!board.isFlagged(cell)) lowest = Math.min(lowest, probability[cell]);
+            }
+            ProbabilitySolver.Guess guess = new ProbabilitySolver(board, solver).lowestRisk(board.getBlueCount());
+            String position = "зерно " + seed;
+            assertTrue(guess.exact, position);
+            assertEquals(lowest, guess.probability, EPSILON, position);
+            assertEquals(probability[guess.index], guess.probability, EPSILON, position);
+            checked++;
+        }
+        assertEquals(POSITIONS, checked, "застрявших позиций меньше, чем нужно");
+    }
+
+    // Ходы, которые выводит Solver; true, если партия не окончена и выводов больше нет
+    private static boolean playDeducedMoves(Game game) {
+        HexGrid grid = game.getBoard().getGrid();
+        Solver solver = game.getSolver();
+        int move;
+        while (!game.isGameOver() && (move = solver.pollMove()) >= 0) {
+            int index = Solver.moveCell(move);
+            if (Solver.moveAction(move) == Solver.OPEN) {
+                game.openCell(grid.rowOf(index), grid.colOf(index));
+            } else {
+                game.toggleFlag(grid.rowOf(index), grid.colOf(index));
+            }
+        }
+        return !game.isGameOver() && game.getUnrevealedSafeCount() > 0;
+    }
+
+    // Доля совместных расстановок с ровно remainingBlue синими среди unknown, в которых клетка синяя
+    private static double[] bruteForce(Board board, Solver solver, List<Integer> unknown, int remainingBlue) {
+        HexGrid grid = board.getGrid();
+        int n = unknown.size();
+        double[] blueCount = new double[grid.size()];
+        double total = 0;
+        boolean[] blue = new boolean[grid.size()];
+        for (int mask = 0; mask < 1 << n; mask++) {
+            if (Integer.bitCount(mask) != remainingBlue) continue;
+            for (int i = 0; i < grid.size(); i++) blue[i] = solver.isKnownBlue(i);
+            for (int j = 0; j < n; j++) {
+                if ((mask >> j & 1) != 0) blue[unknown.get(j)] = true;
+            }
+            if (!consistent(board, blue)) continue;
+            total++;
+            for (int j = 0; j < n; j++) {
+                if ((mask >> j & 1) != 0) blueCount[unknown.get(j)]++;
+            }
+        }
+        for (int i = 0; i < blueCount.length; i++) blueCount[i] /= total;
+        return blueCount;
+    }
+
+    private static boolean consistent(Board board, boolean[] blue) {
+        HexGrid grid = board.getGrid();
+        for (int i = 0; i < grid.size(); i++) {
+            if (!board.isActive(i) || !board.isRevealed(i)) continue;
+            int count = 0;
+            for (int s = grid.neighborStart(i), e = grid.neighborEnd(i); s < e; s++) {
+                if (blue[grid.neighborAt(s)]) count++;
+            }
+            if (count != board.getClue(i)) return false;
+        }
+        return true;
+    }
+}
\ No newline at end of file